@@ -0,0 +1,73 @@
+package com.ridwanharts.scalemonitor.bench;
+
+import com.ridwanharts.scalemonitor.model.ReadingListener;
+import com.ridwanharts.scalemonitor.util.BulkFrameDecoder;
+import com.ridwanharts.scalemonitor.util.FrameColumns;
+import com.ridwanharts.scalemonitor.util.ScaleFrameParser;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BulkFrameDecoder over a whole in-memory capture versus the streaming typed parser fed
+ * the same bytes in one call. Scores are frames per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BulkDecodeBenchmark {
+
+    static final int FRAMES = 100_000;
+
+    @Param({"CLEAN", "MISALIGNED", "CORRUPTED"})
+    public ScaleStreams.Kind stream;
+
+    private byte[] data;
+    private FrameColumns columns;
+    private ScaleFrameParser parser;
+    private ReadingListener onReading;
+    private Consumer<String> onError;
+    private long sink; // keeps the callbacks from being optimized away
+
+    @Setup
+    public void setup() {
+        data = ScaleStreams.build(stream, FRAMES, 42);
+        columns = new FrameColumns(FRAMES);
+        parser = new ScaleFrameParser();
+        onReading = reading -> sink += reading.getWeight();
+        onError = text -> sink++;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public long bulkDecode() {
+        columns.clear();
+        BulkFrameDecoder.decode(data, 0, data.length, columns);
+        long sum = 0;
+        long[] weights = columns.getWeights();
+        for (int i = 0; i < columns.size(); i++) sum += weights[i];
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public long streamingReadings() {
+        parser.reset();
+        parser.feedReadings(data, 0, data.length, onReading, onError);
+        return sink;
+    }
+}
@@ -0,0 +1,73 @@
+package com.ridwanharts.scalemonitor.bench;
+
+import com.ridwanharts.scalemonitor.model.ReadingListener;
+import com.ridwanharts.scalemonitor.util.ScaleFrameParser;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ScaleFrameParser.feed over a whole stream, delivered in chunks of {@code chunkSize}.
+ * Scores are frames per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrameParserBenchmark {
+
+    static final int FRAMES = 10_000;
+
+    @Param({"CLEAN", "MISALIGNED", "CORRUPTED"})
+    public ScaleStreams.Kind stream;
+
+    @Param({"1", "15", "64", "4096"})
+    public int chunkSize;
+
+    private byte[] data;
+    private ScaleFrameParser parser;
+    private Consumer<String> onData;
+    private Consumer<String> onError;
+    private ReadingListener onReading;
+    private long sink; // keeps the callbacks from being optimized away
+
+    @Setup
+    public void setup() {
+        data = ScaleStreams.build(stream, FRAMES, 42);
+        parser = new ScaleFrameParser();
+        onData = text -> sink += text.length();
+        onError = text -> sink++;
+        onReading = reading -> sink += reading.getWeight();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public long feedText() {
+        for (int off = 0; off < data.length; off += chunkSize) {
+            parser.feed(data, off, Math.min(chunkSize, data.length - off), onData, onError);
+        }
+        return sink;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public long feedReadings() {
+        for (int off = 0; off < data.length; off += chunkSize) {
+            parser.feedReadings(data, off, Math.min(chunkSize, data.length - off), onReading, onError);
+        }
+        return sink;
+    }
+}
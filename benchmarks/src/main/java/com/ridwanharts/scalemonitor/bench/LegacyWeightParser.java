@@ -0,0 +1,43 @@
+package com.ridwanharts.scalemonitor.bench;
+
+/**
+ * Verbatim copy of the regex / Double.parseDouble based WeightParser.parseWeight,
+ * kept as the baseline for {@link WeightParserBenchmark}.
+ */
+final class LegacyWeightParser {
+
+    public String parseWeight(String raw) {
+        if (raw == null) return null;
+        raw = raw.trim();
+        if (raw.isEmpty()) return null;
+
+        // Some devices prefix with non-printable — remove leading control chars
+        // Keep only printable ascii
+        raw = raw.replaceAll("[^\\x20-\\x7E]", "").trim();
+
+        // Typical prefix: "wn"
+        if (raw.startsWith("wn")) {
+            raw = raw.substring(2);
+        } else if (raw.startsWith("w")) { // just in case
+            raw = raw.substring(1);
+        }
+
+        // remove suffix unit like "kg"
+        if (raw.endsWith("kg")) {
+            raw = raw.substring(0, raw.length() - 2);
+        }
+
+        // Remove any spaces
+        raw = raw.trim();
+
+        // Some devices pad with leading zeros. Convert to numeric and format simply.
+        try {
+            double val = Double.parseDouble(raw);
+            // Format: remove trailing .0 if not needed? We'll keep one decimal to match device.
+            return String.format("%.1f", val);
+        } catch (NumberFormatException e) {
+            // If parsing fails, return original trimmed string to help debugging
+            return raw;
+        }
+    }
+}
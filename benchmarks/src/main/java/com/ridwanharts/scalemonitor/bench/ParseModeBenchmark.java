@@ -0,0 +1,78 @@
+package com.ridwanharts.scalemonitor.bench;
+
+import com.ridwanharts.scalemonitor.service.SerialService;
+import com.ridwanharts.scalemonitor.transport.PipeTransport;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The whole SerialService receive path for each ParseMode, driven synchronously through a
+ * PipeTransport. The frame stream doubles as a line stream since frames end in CR LF.
+ * Scores are frames per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParseModeBenchmark {
+
+    static final int FRAMES = 10_000;
+
+    @Param({"LINE_BASED", "FRAME_PARSER", "RAW_DEBUG"})
+    public SerialService.ParseMode mode;
+
+    @Param({"CLEAN", "MISALIGNED", "CORRUPTED"})
+    public ScaleStreams.Kind stream;
+
+    @Param({"15", "64", "4096"})
+    public int chunkSize;
+
+    /** FRAME_PARSER only: typed readings instead of text. */
+    @Param({"false", "true"})
+    public boolean readings;
+
+    private byte[] data;
+    private SerialService service;
+    private PipeTransport pipe;
+    private long sink; // keeps the callbacks from being optimized away
+
+    @Setup
+    public void setup() {
+        data = ScaleStreams.build(stream, FRAMES, 42);
+        service = new SerialService();
+        service.setParseMode(mode);
+        if (readings) {
+            service.setReadingListener(reading -> sink += reading.getWeight());
+        }
+        pipe = new PipeTransport("bench");
+        service.open(pipe, text -> sink += text.length(), error -> sink++);
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public long receive() {
+        for (int off = 0; off < data.length; off += chunkSize) {
+            pipe.deliver(data, off, Math.min(chunkSize, data.length - off));
+        }
+        return sink;
+    }
+}
@@ -0,0 +1,42 @@
+package com.ridwanharts.scalemonitor.bench;
+
+import com.ridwanharts.scalemonitor.util.ScaleFrameParser;
+import com.ridwanharts.scalemonitor.util.ScaleSimulator;
+import java.io.ByteArrayOutputStream;
+import java.text.DecimalFormat;
+import java.util.Random;
+
+/**
+ * Deterministic byte streams built with the simulator's frame generator.
+ * Public because JMH's generated code refers to {@link Kind} parameters.
+ */
+public final class ScaleStreams {
+
+    public enum Kind {
+        CLEAN,       // back-to-back valid frames
+        MISALIGNED,  // random garbage bytes between ~10% of the frames, forcing resyncs
+        CORRUPTED    // ~10% of the frames with a broken checksum
+    }
+
+    private ScaleStreams() {
+    }
+
+    static byte[] build(Kind kind, int frames, long seed) {
+        Random rnd = new Random(seed);
+        DecimalFormat df = new DecimalFormat("000.000");
+        ByteArrayOutputStream out = new ByteArrayOutputStream(frames * (ScaleFrameParser.FRAME_LENGTH + 2));
+        byte[] frame = new byte[ScaleFrameParser.FRAME_LENGTH];
+        for (int i = 0; i < frames; i++) {
+            ScaleSimulator.nextFrame(rnd, df, frame, 0);
+            if (kind == Kind.MISALIGNED && rnd.nextInt(10) == 0) {
+                int junk = 1 + rnd.nextInt(7);
+                for (int j = 0; j < junk; j++) out.write(rnd.nextInt(256));
+            }
+            if (kind == Kind.CORRUPTED && rnd.nextInt(10) == 0) {
+                frame[11] ^= 0x01;
+            }
+            out.write(frame, 0, frame.length);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,71 @@
+package com.ridwanharts.scalemonitor.bench;
+
+import com.ridwanharts.scalemonitor.util.WeightParser;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Today's regex based parseWeight against the single-pass scanner, on Sayaki A12E payloads.
+ * Run with {@code -prof gc} to see the allocation difference.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WeightParserBenchmark {
+
+    @Param({
+        "wn000125.4kg",
+        "wn000000.0kg",
+        "\u0002wn000087.6kg\r",
+        "wn-00012.5kg"
+    })
+    public String payload;
+
+    private byte[] payloadBytes;
+    private final LegacyWeightParser legacy = new LegacyWeightParser();
+    private final WeightParser parser = new WeightParser();
+
+    @Setup
+    public void setup() {
+        payloadBytes = payload.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Benchmark
+    public String legacyParseWeight() {
+        return legacy.parseWeight(payload);
+    }
+
+    @Benchmark
+    public String parseWeight() {
+        return parser.parseWeight(payload);
+    }
+
+    @Benchmark
+    public void parseFixedPointChars(Blackhole bh) {
+        bh.consume(parser.parse(payload, 0, payload.length()));
+        bh.consume(parser.getValue());
+        bh.consume(parser.getScale());
+    }
+
+    @Benchmark
+    public void parseFixedPointBytes(Blackhole bh) {
+        bh.consume(parser.parse(payloadBytes, 0, payloadBytes.length));
+        bh.consume(parser.getValue());
+        bh.consume(parser.getScale());
+    }
+}
@@ -0,0 +1,74 @@
+package com.ridwanharts.scalemonitor.capture;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * On-disk layout shared by {@link CaptureWriter} and {@link CaptureReader}.
+ * <p>
+ * A capture is a directory of segment files {@code <name>-000001.cap}, each starting
+ * with a header and followed by records (big endian):
+ * <pre>
+ * header: "SCAP" | version:u8 | reserved:u8[3] | wallClockMillis:i64 | nanoTime:i64
+ * port:   type=1 | portId:u16 | nameLength:u16 | name:UTF-8
+ * data:   type=2 | portId:u16 | nanoTime:i64 | length:i32 | bytes
+ * </pre>
+ * Every segment repeats the port records it uses, so segments can be read on their own.
+ * The header pairs wall-clock time with {@link System#nanoTime()} to date the records.
+ *
+ * @author ridwan
+ */
+final class CaptureFormat {
+
+    static final int MAGIC = 0x53434150; // "SCAP"
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 4 + 1 + 3 + 8 + 8;
+    static final int HEADER_TIME_OFFSET = 4 + 1 + 3; // wallClockMillis, then nanoTime
+
+    static final byte TYPE_PORT = 1;
+    static final byte TYPE_DATA = 2;
+    static final int DATA_HEADER_SIZE = 1 + 2 + 8 + 4;
+    static final int PORT_HEADER_SIZE = 1 + 2 + 2;
+
+    static final String SUFFIX = ".cap";
+
+    private CaptureFormat() {
+    }
+
+    static Path segmentPath(Path dir, String name, long seq) {
+        return dir.resolve(String.format("%s-%06d%s", name, seq, SUFFIX));
+    }
+
+    /**
+     * Sequence number of a segment file of capture {@code name}, or -1 if it is not one.
+     */
+    static long sequenceOf(Path file, String name) {
+        String fn = file.getFileName().toString();
+        String prefix = name + "-";
+        if (!fn.startsWith(prefix) || !fn.endsWith(SUFFIX)) return -1;
+        try {
+            return Long.parseLong(fn.substring(prefix.length(), fn.length() - SUFFIX.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Segment files of capture {@code name} in {@code dir}, oldest first.
+     */
+    static List<Path> listSegments(Path dir, String name) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return segments;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, name + "-*" + SUFFIX)) {
+            for (Path p : files) {
+                if (sequenceOf(p, name) >= 0) segments.add(p);
+            }
+        }
+        segments.sort((a, b) -> Long.compare(sequenceOf(a, name), sequenceOf(b, name)));
+        return segments;
+    }
+}
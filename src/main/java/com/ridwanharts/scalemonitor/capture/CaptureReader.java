@@ -0,0 +1,162 @@
+package com.ridwanharts.scalemonitor.capture;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a capture written by {@link CaptureWriter}.
+ * <p>
+ * Segments are memory-mapped and walked record by record; payloads are copied into one
+ * reused buffer before being handed on. Replay runs either as fast as possible or paced
+ * by the recorded timestamps, dated through the wall-clock / nanoTime pair in each
+ * segment header since segments may come from different runs. A truncated last record
+ * (e.g. after a crash) ends the segment quietly.
+ *
+ * @author ridwan
+ */
+public class CaptureReader {
+
+    /**
+     * Receives replayed chunks. {@code nanoTime} is as recorded, so only comparable within
+     * one segment; {@code data} is only valid during the call.
+     */
+    @FunctionalInterface
+    public interface ChunkHandler {
+
+        void onChunk(String portName, long nanoTime, byte[] data, int off, int len);
+    }
+
+    private final Path dir;
+    private final String name;
+
+    public CaptureReader(Path dir, String name) {
+        this.dir = dir;
+        this.name = name;
+    }
+
+    public List<Path> segments() throws IOException {
+        return CaptureFormat.listSegments(dir, name);
+    }
+
+    /**
+     * Names of all ports recorded in the capture, in order of first appearance.
+     */
+    public Set<String> ports() throws IOException {
+        Set<String> names = new LinkedHashSet<>();
+        for (Path segment : segments()) {
+            try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer map = map(ch, segment);
+                map.position(CaptureFormat.HEADER_SIZE);
+                while (map.hasRemaining()) {
+                    byte type = map.get();
+                    if (type == CaptureFormat.TYPE_PORT) {
+                        if (map.remaining() < CaptureFormat.PORT_HEADER_SIZE - 1) break;
+                        map.getShort();
+                        int nameLen = map.getShort() & 0xFFFF;
+                        if (map.remaining() < nameLen) break;
+                        byte[] nameBytes = new byte[nameLen];
+                        map.get(nameBytes);
+                        names.add(new String(nameBytes, StandardCharsets.UTF_8));
+                    } else if (type == CaptureFormat.TYPE_DATA) {
+                        if (map.remaining() < CaptureFormat.DATA_HEADER_SIZE - 1) break;
+                        map.position(map.position() + 2 + 8);
+                        int len = map.getInt();
+                        if (len < 0 || map.remaining() < len) break;
+                        map.position(map.position() + len);
+                    } else {
+                        throw new IOException("corrupt record type " + type + " in " + segment);
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Replay every chunk of every segment, oldest first.
+     * @param portFilter only replay this port, or null for all ports
+     * @param realtime sleep between chunks to reproduce the original timing
+     * @return number of chunks replayed
+     */
+    public long replay(String portFilter, boolean realtime, ChunkHandler handler)
+            throws IOException, InterruptedException {
+        byte[] buf = new byte[4096];
+        long chunks = 0;
+        long firstWallNanos = 0; // wall time of the first replayed chunk, in nanos since the epoch
+        long startNanos = 0;
+        for (Path segment : segments()) {
+            try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer map = map(ch, segment);
+                map.position(CaptureFormat.HEADER_TIME_OFFSET);
+                long segmentWallNanos = map.getLong() * 1_000_000L;
+                long segmentNanos = map.getLong();
+
+                Map<Integer, String> ports = new HashMap<>();
+                while (map.hasRemaining()) {
+                    byte type = map.get();
+                    if (type == CaptureFormat.TYPE_PORT) {
+                        if (map.remaining() < CaptureFormat.PORT_HEADER_SIZE - 1) break;
+                        int id = map.getShort() & 0xFFFF;
+                        int nameLen = map.getShort() & 0xFFFF;
+                        if (map.remaining() < nameLen) break;
+                        byte[] nameBytes = new byte[nameLen];
+                        map.get(nameBytes);
+                        ports.put(id, new String(nameBytes, StandardCharsets.UTF_8));
+                    } else if (type == CaptureFormat.TYPE_DATA) {
+                        if (map.remaining() < CaptureFormat.DATA_HEADER_SIZE - 1) break;
+                        int id = map.getShort() & 0xFFFF;
+                        long nanos = map.getLong();
+                        int len = map.getInt();
+                        if (len < 0 || map.remaining() < len) break;
+                        String port = ports.get(id);
+                        if (portFilter != null && !portFilter.equals(port)) {
+                            map.position(map.position() + len);
+                            continue;
+                        }
+                        if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+                        if (buf.length < len) buf = new byte[Math.max(len, buf.length * 2)];
+                        map.get(buf, 0, len);
+
+                        if (realtime) {
+                            long wallNanos = segmentWallNanos + (nanos - segmentNanos);
+                            if (chunks == 0) {
+                                firstWallNanos = wallNanos;
+                                startNanos = System.nanoTime();
+                            } else {
+                                long due = startNanos + (wallNanos - firstWallNanos) - System.nanoTime();
+                                if (due > 0) TimeUnit.NANOSECONDS.sleep(due);
+                            }
+                        }
+                        handler.onChunk(port, nanos, buf, 0, len);
+                        chunks++;
+                    } else {
+                        throw new IOException("corrupt record type " + type + " in " + segment);
+                    }
+                }
+            }
+        }
+        return chunks;
+    }
+
+    private static MappedByteBuffer map(FileChannel ch, Path segment) throws IOException {
+        MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        if (map.remaining() < CaptureFormat.HEADER_SIZE || map.getInt() != CaptureFormat.MAGIC) {
+            throw new IOException("not a capture segment: " + segment);
+        }
+        byte version = map.get();
+        if (version != CaptureFormat.VERSION) {
+            throw new IOException("unsupported capture version " + version + " in " + segment);
+        }
+        return map;
+    }
+}
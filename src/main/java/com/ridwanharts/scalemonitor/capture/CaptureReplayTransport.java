@@ -0,0 +1,73 @@
+package com.ridwanharts.scalemonitor.capture;
+
+import com.ridwanharts.scalemonitor.transport.ByteTransport;
+import java.io.IOException;
+
+/**
+ * Feeds a recorded capture into the normal pipeline, e.g.
+ * {@code serialService.open(new CaptureReplayTransport(reader, "COM3", false), ...)},
+ * so it can be reprocessed with any ParseMode. Replay runs on its own thread and the
+ * transport reports closed once the capture is exhausted. Writes are discarded.
+ *
+ * @author ridwan
+ */
+public class CaptureReplayTransport implements ByteTransport {
+
+    private final CaptureReader reader;
+    private final String portFilter;
+    private final boolean realtime;
+    private volatile Thread thread;
+
+    /**
+     * @param portFilter only replay this port, or null for all ports
+     * @param realtime reproduce the original timing instead of replaying flat out
+     */
+    public CaptureReplayTransport(CaptureReader reader, String portFilter, boolean realtime) {
+        this.reader = reader;
+        this.portFilter = portFilter;
+        this.realtime = realtime;
+    }
+
+    @Override
+    public String getName() {
+        return "replay:" + (portFilter != null ? portFilter : "*");
+    }
+
+    @Override
+    public boolean open(DataHandler handler) {
+        Thread t = new Thread(() -> {
+            try {
+                reader.replay(portFilter, realtime,
+                        (port, nanos, data, off, len) -> handler.onData(data, off, len));
+            } catch (IOException ex) {
+                handler.onError(ex.getMessage());
+            } catch (InterruptedException ex) {
+                // closed while pacing
+            } finally {
+                thread = null;
+            }
+        }, getName());
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+        return true;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return thread != null;
+    }
+
+    @Override
+    public int write(byte[] data, int off, int len) throws IOException {
+        return len;
+    }
+
+    @Override
+    public void close() {
+        Thread t = thread;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+}
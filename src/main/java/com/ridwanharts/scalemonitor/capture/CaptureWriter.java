@@ -0,0 +1,280 @@
+package com.ridwanharts.scalemonitor.capture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only recorder for everything the scales send, see {@link CaptureFormat}.
+ * <p>
+ * Records are collected in a direct batch buffer. When the batch is full, or at the
+ * latest every {@code flushIntervalMillis}, it is swapped for a second buffer and the
+ * flush thread writes it with one {@link FileChannel#write}, so appending only waits for
+ * the disk when it fills both buffers faster than the disk takes them. Segments roll over
+ * at {@code segmentSize} bytes; a new writer continues after the highest existing segment
+ * instead of overwriting it. {@link #append} never throws: after an I/O failure further
+ * data is counted as lost and the error is kept in {@link #getLastError()}.
+ *
+ * @author ridwan
+ */
+public class CaptureWriter implements AutoCloseable {
+
+    private static final int DEFAULT_BATCH_SIZE = 64 * 1024;
+    private static final int MAX_PORT_NAME_BYTES = 1024; // a port record always fits a fresh batch
+
+    private final Path dir;
+    private final String name;
+    private final long segmentSize;
+    private final List<String> ports = new ArrayList<>();
+    private final ScheduledExecutorService flusher; // also writes out the full batches, in order
+
+    // guarded by this
+    private ByteBuffer batch;                       // being filled
+    private ByteBuffer spare;                       // empty, or null while the flusher writes it
+    private FileChannel channel;
+    private long seq;
+    private long segmentBytes;
+    private boolean[] portWritten = new boolean[0]; // port record present in current segment
+    private boolean closed;
+
+    private volatile IOException lastError;
+    private volatile long lostBytes;
+
+    public CaptureWriter(Path dir, String name, long segmentSize, long flushIntervalMillis) throws IOException {
+        this.dir = dir;
+        this.name = name;
+        this.segmentSize = Math.max(segmentSize, CaptureFormat.HEADER_SIZE + DEFAULT_BATCH_SIZE);
+        this.batch = ByteBuffer.allocateDirect(DEFAULT_BATCH_SIZE);
+        this.spare = ByteBuffer.allocateDirect(DEFAULT_BATCH_SIZE);
+
+        Files.createDirectories(dir);
+        List<Path> existing = CaptureFormat.listSegments(dir, name);
+        seq = existing.isEmpty() ? 0 : CaptureFormat.sequenceOf(existing.get(existing.size() - 1), name);
+        openNextSegment();
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "capture-flush-" + name);
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushInBackground, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Register a port (e.g. transport name) and get the id to pass to {@link #append}.
+     * Registering the same name again returns the same id.
+     */
+    public synchronized int registerPort(String portName) {
+        int id = ports.indexOf(portName);
+        if (id >= 0) return id;
+        if (ports.size() > 0xFFFF) throw new IllegalStateException("too many ports");
+        if (portName.getBytes(StandardCharsets.UTF_8).length > MAX_PORT_NAME_BYTES) {
+            throw new IllegalArgumentException("port name too long: " + portName);
+        }
+        ports.add(portName);
+        if (portWritten.length < ports.size()) {
+            boolean[] grown = new boolean[Math.max(8, ports.size() * 2)];
+            System.arraycopy(portWritten, 0, grown, 0, portWritten.length);
+            portWritten = grown;
+        }
+        return ports.size() - 1;
+    }
+
+    /**
+     * Record {@code len} bytes received on {@code portId} at {@code nanoTime}.
+     * @return false if the bytes could not be recorded
+     */
+    public synchronized boolean append(int portId, long nanoTime, byte[] data, int off, int len) {
+        if (closed || lastError != null) {
+            lostBytes += len;
+            return false;
+        }
+        try {
+            int size = CaptureFormat.DATA_HEADER_SIZE + len;
+            boolean roll = segmentBytes + size > segmentSize && segmentBytes > CaptureFormat.HEADER_SIZE;
+            int needed = size + (portWritten[portId] ? 0 : portRecordSize(portId));
+            if (spare == null && (roll || batch.remaining() < needed)) {
+                // wait before touching anything: other appends may run meanwhile
+                awaitSpare();
+                return append(portId, nanoTime, data, off, len);
+            }
+            if (roll) {
+                rollSegment();
+            } else if (batch.remaining() < needed && batch.remaining() < DEFAULT_BATCH_SIZE) {
+                handOff(false);
+            }
+            if (!portWritten[portId]) {
+                writePortRecord(portId);
+            }
+            if (batch.remaining() >= size) {
+                batch.put(CaptureFormat.TYPE_DATA).putShort((short) portId).putLong(nanoTime).putInt(len);
+                batch.put(data, off, len);
+            } else {
+                // larger than a whole batch: the flusher writes a copy of it with what was batched before
+                ByteBuffer record = ByteBuffer.allocate(batch.position() + size);
+                batch.flip();
+                record.put(batch);
+                batch.clear();
+                record.put(CaptureFormat.TYPE_DATA).putShort((short) portId).putLong(nanoTime).putInt(len);
+                record.put(data, off, len).flip();
+                FileChannel ch = channel;
+                flusher.execute(() -> writeOut(record, ch, false, false));
+            }
+            segmentBytes += size;
+            return true;
+        } catch (IOException ex) {
+            lastError = ex;
+            lostBytes += len;
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            lostBytes += len;
+            return false;
+        }
+    }
+
+    /**
+     * Write everything batched so far to the current segment and wait until it is written.
+     */
+    public synchronized void flush() throws IOException {
+        if (closed) return;
+        try {
+            handOff(false);
+            awaitSpare();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while flushing", ex);
+        }
+        IOException error = lastError;
+        if (error != null) throw error;
+    }
+
+    // periodic flush on the flusher thread itself, so it must never wait for the spare
+    private synchronized void flushInBackground() {
+        if (closed || lastError != null || spare == null || batch.position() == 0) return;
+        try {
+            handOff(false);
+        } catch (IOException | InterruptedException ex) {
+            // not reached, the spare is free
+        }
+    }
+
+    /**
+     * First I/O error that stopped recording, or null.
+     */
+    public IOException getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Bytes that were not recorded because of an I/O error or after close.
+     */
+    public long getLostBytes() {
+        return lostBytes;
+    }
+
+    private int portRecordSize(int portId) {
+        return CaptureFormat.PORT_HEADER_SIZE + ports.get(portId).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    // callers make room first, see append
+    private void writePortRecord(int portId) {
+        byte[] nameBytes = ports.get(portId).getBytes(StandardCharsets.UTF_8);
+        int size = CaptureFormat.PORT_HEADER_SIZE + nameBytes.length;
+        batch.put(CaptureFormat.TYPE_PORT).putShort((short) portId).putShort((short) nameBytes.length).put(nameBytes);
+        segmentBytes += size;
+        portWritten[portId] = true;
+    }
+
+    private void openNextSegment() throws IOException {
+        seq++;
+        channel = FileChannel.open(CaptureFormat.segmentPath(dir, name, seq),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        batch.putInt(CaptureFormat.MAGIC).put(CaptureFormat.VERSION).put((byte) 0).put((byte) 0).put((byte) 0)
+             .putLong(System.currentTimeMillis()).putLong(System.nanoTime());
+        segmentBytes = CaptureFormat.HEADER_SIZE;
+        Arrays.fill(portWritten, false);
+    }
+
+    private void rollSegment() throws IOException, InterruptedException {
+        handOff(true);
+        openNextSegment();
+    }
+
+    /**
+     * Swap the batch for the spare and let the flusher write it to the current channel,
+     * closing the channel afterwards if {@code closeChannel}. Waits (releasing the lock)
+     * only while the flusher is still writing the previous batch.
+     */
+    private void handOff(boolean closeChannel) throws IOException, InterruptedException {
+        awaitSpare();
+        if (lastError != null) throw lastError;
+        ByteBuffer full = batch;
+        batch = spare;
+        spare = null;
+        full.flip();
+        FileChannel ch = channel;
+        flusher.execute(() -> writeOut(full, ch, closeChannel, true));
+    }
+
+    private void awaitSpare() throws InterruptedException {
+        while (spare == null) {
+            wait();
+        }
+    }
+
+    // runs on the flusher thread only
+    private void writeOut(ByteBuffer buf, FileChannel ch, boolean closeChannel, boolean isBatch) {
+        IOException error = null;
+        try {
+            if (lastError == null) {
+                while (buf.hasRemaining()) {
+                    ch.write(buf);
+                }
+            }
+            if (closeChannel) ch.close();
+        } catch (IOException ex) {
+            error = ex;
+        }
+        synchronized (this) {
+            if (error != null && lastError == null) lastError = error;
+            lostBytes += buf.remaining();
+            if (isBatch) {
+                buf.clear();
+                spare = buf;
+                notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true; // no more appends while waiting for the last write below
+        try {
+            handOff(true);
+            awaitSpare();
+        } catch (IOException ex) {
+            channel.close(); // recording had already stopped
+            return;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            channel.close();
+        } finally {
+            flusher.shutdownNow();
+        }
+        IOException error = lastError;
+        if (error != null) throw error;
+    }
+}
@@ -0,0 +1,173 @@
+package com.ridwanharts.scalemonitor.codec;
+
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Picks the protocol by itself. Every detectable codec decodes the first bytes of the
+ * stream side by side; the one with the best valid-frame rate (ties broken by
+ * {@link ScaleCodec#getPriority()}, then frame count) wins. The winner then gets a fresh
+ * decoder, the buffered bytes are replayed into it so nothing is lost, and from then on
+ * bytes go straight to it. If nothing matches the stream falls back to a raw hex dump.
+ *
+ * @author ridwan
+ */
+public class AutoDetectCodec implements ScaleCodec {
+
+    public static final String NAME = "auto";
+
+    /** Bytes examined before a decision is forced. */
+    static final int DETECT_BYTES = 512;
+    /** Frames a candidate needs to be accepted at all. */
+    static final int MIN_FRAMES = 3;
+    /** Frames after which a clean candidate is accepted before the window is full. */
+    static final int CONFIDENT_FRAMES = 8;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isDetectable() {
+        return false;
+    }
+
+    @Override
+    public ScaleDecoder newDecoder(DecoderContext context) {
+        return new Decoder(context);
+    }
+
+    /** Swallows candidate output; typed readings avoid building Strings while scoring. */
+    private static final DecodeSink DISCARD = new DecodeSink() {
+        @Override
+        public boolean wantsReadings() {
+            return true;
+        }
+
+        @Override
+        public void onReading(WeightReading reading) {
+        }
+
+        @Override
+        public void onText(String text) {
+        }
+
+        @Override
+        public void onError(String message) {
+        }
+    };
+
+    private static final class Candidate {
+        final ScaleCodec codec;
+        final ScaleDecoder decoder;
+
+        Candidate(ScaleCodec codec) {
+            this.codec = codec;
+            this.decoder = codec.newDecoder(DecoderContext.DEFAULT);
+        }
+
+        long valid() {
+            return decoder.getValidFrames();
+        }
+
+        double rate() {
+            long total = decoder.getValidFrames() + decoder.getInvalidFrames();
+            return (total == 0) ? 0 : (double) decoder.getValidFrames() / total;
+        }
+    }
+
+    private static final class Decoder implements ScaleDecoder {
+
+        private static final Comparator<Candidate> BEST_FIRST =
+                Comparator.comparingDouble(Candidate::rate)
+                        .thenComparingInt(c -> c.codec.getPriority())
+                        .thenComparingLong(Candidate::valid)
+                        .reversed();
+
+        private final DecoderContext context;
+        private final List<Candidate> candidates = new ArrayList<>();
+        private final byte[] pending = new byte[DETECT_BYTES];
+        private int pendingLen;
+        private ScaleDecoder chosen;
+
+        Decoder(DecoderContext context) {
+            this.context = context;
+            startDetection();
+        }
+
+        private void startDetection() {
+            candidates.clear();
+            for (ScaleCodec codec : CodecRegistry.getDetectable()) {
+                candidates.add(new Candidate(codec));
+            }
+            pendingLen = 0;
+        }
+
+        @Override
+        public void decode(byte[] buf, int off, int len, DecodeSink sink) {
+            int end = off + len;
+            while (chosen == null && off < end) {
+                int n = Math.min(end - off, DETECT_BYTES - pendingLen);
+                System.arraycopy(buf, off, pending, pendingLen, n);
+                for (Candidate c : candidates) {
+                    c.decoder.decode(buf, off, n, DISCARD);
+                }
+                pendingLen += n;
+                off += n;
+                decide(sink);
+            }
+            if (chosen != null && off < end) {
+                chosen.decode(buf, off, end - off, sink);
+            }
+        }
+
+        private void decide(DecodeSink sink) {
+            candidates.sort(BEST_FIRST);
+            Candidate best = candidates.isEmpty() ? null : candidates.get(0);
+            boolean confident = best != null && best.valid() >= CONFIDENT_FRAMES && best.rate() >= 0.9;
+            if (!confident && pendingLen < DETECT_BYTES) return;
+
+            ScaleCodec winner;
+            if (best != null && best.valid() >= MIN_FRAMES) {
+                winner = best.codec;
+                sink.onText(String.format("[AUTO] protocol %s (%d/%d valid frames in %d bytes)",
+                        winner.getName(), best.valid(), best.valid() + best.decoder.getInvalidFrames(), pendingLen));
+            } else {
+                winner = CodecRegistry.get(RawHexCodec.NAME);
+                sink.onError("no known protocol in the first " + pendingLen + " bytes, showing raw data");
+            }
+            chosen = winner.newDecoder(context);
+            candidates.clear();
+            chosen.decode(pending, 0, pendingLen, sink);
+            pendingLen = 0;
+        }
+
+        @Override
+        public void reset() {
+            if (chosen != null) {
+                chosen.reset();
+            } else {
+                startDetection();
+            }
+        }
+
+        @Override
+        public long getValidFrames() {
+            return (chosen == null) ? 0 : chosen.getValidFrames();
+        }
+
+        @Override
+        public long getInvalidFrames() {
+            return (chosen == null) ? 0 : chosen.getInvalidFrames();
+        }
+
+        @Override
+        public boolean isReplyTo(String command, WeightReading reading, String text) {
+            // nothing answers before a protocol is chosen, not even the detection notice
+            return chosen != null && chosen.isReplyTo(command, reading, text);
+        }
+    }
+}
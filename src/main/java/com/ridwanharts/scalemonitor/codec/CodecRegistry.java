@@ -0,0 +1,57 @@
+package com.ridwanharts.scalemonitor.codec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * All {@link ScaleCodec}s found by {@link ServiceLoader}, loaded once on first use.
+ *
+ * @author ridwan
+ */
+public final class CodecRegistry {
+
+    private static final class Holder {
+        static final Map<String, ScaleCodec> CODECS = load();
+    }
+
+    private CodecRegistry() {
+    }
+
+    private static Map<String, ScaleCodec> load() {
+        Map<String, ScaleCodec> map = new LinkedHashMap<>();
+        for (ScaleCodec codec : ServiceLoader.load(ScaleCodec.class, CodecRegistry.class.getClassLoader())) {
+            map.putIfAbsent(codec.getName(), codec); // first one on the path wins
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * @throws IllegalArgumentException if no codec has that name
+     */
+    public static ScaleCodec get(String name) {
+        ScaleCodec codec = Holder.CODECS.get(name);
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown codec: " + name);
+        }
+        return codec;
+    }
+
+    public static List<String> getNames() {
+        return new ArrayList<>(Holder.CODECS.keySet());
+    }
+
+    /**
+     * Codecs auto-detection may choose from.
+     */
+    public static List<ScaleCodec> getDetectable() {
+        List<ScaleCodec> list = new ArrayList<>();
+        for (ScaleCodec codec : Holder.CODECS.values()) {
+            if (codec.isDetectable()) list.add(codec);
+        }
+        return list;
+    }
+}
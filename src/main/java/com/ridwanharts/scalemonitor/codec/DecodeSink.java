@@ -0,0 +1,26 @@
+package com.ridwanharts.scalemonitor.codec;
+
+import com.ridwanharts.scalemonitor.model.WeightReading;
+
+/**
+ * Where a {@link ScaleDecoder} delivers its output.
+ *
+ * @author ridwan
+ */
+public interface DecodeSink {
+
+    /**
+     * True if typed readings are wanted; decoders then call {@link #onReading} instead of
+     * {@link #onText} for frames they can decode.
+     */
+    boolean wantsReadings();
+
+    /**
+     * A decoded reading; the instance may be reused by the decoder after the call.
+     */
+    void onReading(WeightReading reading);
+
+    void onText(String text);
+
+    void onError(String message);
+}
@@ -0,0 +1,58 @@
+package com.ridwanharts.scalemonitor.codec;
+
+import com.ridwanharts.scalemonitor.metrics.PortMetrics;
+
+/**
+ * Per-connection settings handed to {@link ScaleCodec#newDecoder}.
+ *
+ * @author ridwan
+ */
+public final class DecoderContext {
+
+    /** No metrics, default raw dump layout; used for auto-detection candidates. */
+    public static final DecoderContext DEFAULT = new DecoderContext(null, false, 64);
+
+    private final PortMetrics metrics;
+    private final boolean rawDumpClassic;
+    private final int rawDumpBytesPerLine;
+    private final boolean continuousOutput;
+
+    /**
+     * @param metrics counters to update, or null
+     * @param rawDumpClassic hex dumps in offset / hex / ASCII columns
+     * @param rawDumpBytesPerLine maximum bytes per hex dump line
+     */
+    public DecoderContext(PortMetrics metrics, boolean rawDumpClassic, int rawDumpBytesPerLine) {
+        this(metrics, rawDumpClassic, rawDumpBytesPerLine, false);
+    }
+
+    /**
+     * @param continuousOutput the scale sends readings on its own, so they never answer a command
+     */
+    public DecoderContext(PortMetrics metrics, boolean rawDumpClassic, int rawDumpBytesPerLine,
+                          boolean continuousOutput) {
+        this.metrics = metrics;
+        this.rawDumpClassic = rawDumpClassic;
+        this.rawDumpBytesPerLine = rawDumpBytesPerLine;
+        this.continuousOutput = continuousOutput;
+    }
+
+    public PortMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isRawDumpClassic() {
+        return rawDumpClassic;
+    }
+
+    public int getRawDumpBytesPerLine() {
+        return rawDumpBytesPerLine;
+    }
+
+    /**
+     * True if the scale streams readings without being asked (continuous output mode).
+     */
+    public boolean isContinuousOutput() {
+        return continuousOutput;
+    }
+}
@@ -0,0 +1,85 @@
+package com.ridwanharts.scalemonitor.codec;
+
+import com.ridwanharts.scalemonitor.model.ReadingListener;
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import com.ridwanharts.scalemonitor.util.ScaleFrameParser;
+import java.util.function.Consumer;
+
+/**
+ * The fixed 15-byte frame protocol with checksum, decoded by {@link ScaleFrameParser}.
+ *
+ * @author ridwan
+ */
+public class FrameCodec implements ScaleCodec {
+
+    public static final String NAME = "frame15";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getPriority() {
+        return 10; // checksummed fixed-length frames rarely match by accident
+    }
+
+    @Override
+    public ScaleDecoder newDecoder(DecoderContext context) {
+        ScaleFrameParser parser = new ScaleFrameParser();
+        parser.setMetrics(context.getMetrics());
+        return new Decoder(parser, context.isContinuousOutput());
+    }
+
+    private static final class Decoder implements ScaleDecoder {
+
+        private final ScaleFrameParser parser;
+        private final boolean continuousOutput;
+        // callbacks bound to the last sink, so steady-state decoding creates no lambdas
+        private DecodeSink boundSink;
+        private Consumer<String> onText;
+        private Consumer<String> onError;
+        private ReadingListener onReading;
+
+        Decoder(ScaleFrameParser parser, boolean continuousOutput) {
+            this.parser = parser;
+            this.continuousOutput = continuousOutput;
+        }
+
+        @Override
+        public void decode(byte[] buf, int off, int len, DecodeSink sink) {
+            if (sink != boundSink) {
+                boundSink = sink;
+                onText = sink::onText;
+                onError = sink::onError;
+                onReading = sink::onReading;
+            }
+            if (sink.wantsReadings()) {
+                parser.feedReadings(buf, off, len, onReading, onError);
+            } else {
+                parser.feed(buf, off, len, onText, onError);
+            }
+        }
+
+        @Override
+        public void reset() {
+            parser.reset();
+        }
+
+        @Override
+        public long getValidFrames() {
+            return parser.getValidFrames();
+        }
+
+        @Override
+        public long getInvalidFrames() {
+            return parser.getInvalidFrames();
+        }
+
+        @Override
+        public boolean isReplyTo(String command, WeightReading reading, String text) {
+            // every frame is a weight, a streamed one looks exactly like a requested one
+            return !continuousOutput && (reading != null || text != null);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.ridwanharts.scalemonitor.codec;
+
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import com.ridwanharts.scalemonitor.util.WeightParser;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Newline-terminated ASCII lines (e.g. Sayaki "wn000125.4kg"). Every line is delivered as
+ * text; a line counts as a valid frame when {@link WeightParser} finds a weight in it.
+ * Works on the raw bytes and decodes a line as UTF-8 only once it is complete, so
+ * multi-byte characters split across reads stay intact.
+ *
+ * @author ridwan
+ */
+public class LineCodec implements ScaleCodec {
+
+    public static final String NAME = "line";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public ScaleDecoder newDecoder(DecoderContext context) {
+        return new Decoder(context.isContinuousOutput());
+    }
+
+    private static final class Decoder implements ScaleDecoder {
+
+        private final WeightParser weightParser = new WeightParser();
+        private final boolean continuousOutput;
+        private byte[] lineBuf = new byte[256];
+        private int lineLen;
+        private boolean weightLine; // the line being delivered holds a weight
+        private long valid;
+        private long invalid;
+
+        Decoder(boolean continuousOutput) {
+            this.continuousOutput = continuousOutput;
+        }
+
+        @Override
+        public void decode(byte[] buf, int off, int len, DecodeSink sink) {
+            for (int i = off; i < off + len; i++) {
+                byte b = buf[i];
+                if (b == '\n') {
+                    weightLine = lineLen > 0 && weightParser.parse(lineBuf, 0, lineLen);
+                    if (weightLine) valid++; else if (lineLen > 0) invalid++;
+                    String line = new String(lineBuf, 0, lineLen, StandardCharsets.UTF_8);
+                    lineLen = 0;
+                    sink.onText(line);
+                } else if (b != '\r') {
+                    if (lineLen == lineBuf.length) {
+                        lineBuf = Arrays.copyOf(lineBuf, lineLen * 2);
+                    }
+                    lineBuf[lineLen++] = b;
+                }
+            }
+        }
+
+        @Override
+        public void reset() {
+            lineLen = 0;
+        }
+
+        @Override
+        public long getValidFrames() {
+            return valid;
+        }
+
+        @Override
+        public long getInvalidFrames() {
+            return invalid;
+        }
+
+        @Override
+        public boolean isReplyTo(String command, WeightReading reading, String text) {
+            if (text == null || text.isEmpty()) return false;
+            // a streaming scale sends weight lines on its own; acknowledgements and error
+            // codes are still answers
+            return !continuousOutput || !weightLine;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.ridwanharts.scalemonitor.codec;
+
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import com.ridwanharts.scalemonitor.util.HexDump;
+import java.util.function.Consumer;
+
+/**
+ * Hex dump of every received burst, for debugging unknown protocols. Never auto-detected.
+ *
+ * @author ridwan
+ */
+public class RawHexCodec implements ScaleCodec {
+
+    public static final String NAME = "raw-hex";
+    private static final String PREFIX = "[RAW HEX] ";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isDetectable() {
+        return false;
+    }
+
+    @Override
+    public ScaleDecoder newDecoder(DecoderContext context) {
+        return new Decoder(new HexDump(PREFIX, context.isRawDumpClassic(), context.getRawDumpBytesPerLine()),
+                context.isContinuousOutput());
+    }
+
+    private static final class Decoder implements ScaleDecoder {
+
+        private final HexDump dump;
+        private final boolean continuousOutput;
+        private DecodeSink boundSink;
+        private Consumer<String> onText;
+
+        Decoder(HexDump dump, boolean continuousOutput) {
+            this.dump = dump;
+            this.continuousOutput = continuousOutput;
+        }
+
+        @Override
+        public void decode(byte[] buf, int off, int len, DecodeSink sink) {
+            if (sink != boundSink) {
+                boundSink = sink;
+                onText = sink::onText;
+            }
+            dump.dump(buf, off, len, onText);
+        }
+
+        @Override
+        public void reset() {
+            dump.reset();
+        }
+
+        @Override
+        public long getValidFrames() {
+            return 0;
+        }
+
+        @Override
+        public long getInvalidFrames() {
+            return 0;
+        }
+
+        @Override
+        public boolean isReplyTo(String command, WeightReading reading, String text) {
+            // a dump line is just the next bytes, it tells nothing apart from a stream
+            return !continuousOutput && text != null && !text.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.ridwanharts.scalemonitor.codec;
+
+/**
+ * Service provider for one scale protocol. Implementations are found with
+ * {@link java.util.ServiceLoader}: list them in {@code module-info.java}
+ * ({@code provides ScaleCodec with ...}) and in
+ * {@code META-INF/services/com.ridwanharts.scalemonitor.codec.ScaleCodec} for the class path.
+ * A codec is stateless; all parsing state lives in the decoders it creates.
+ *
+ * @author ridwan
+ */
+public interface ScaleCodec {
+
+    /**
+     * Unique name, used by {@link CodecRegistry#get(String)} and shown to the user.
+     */
+    String getName();
+
+    /**
+     * A new decoder for one connection.
+     */
+    ScaleDecoder newDecoder(DecoderContext context);
+
+    /**
+     * Whether auto-detection may pick this codec. Codecs that accept any input (like the
+     * raw hex dump) must return false.
+     */
+    default boolean isDetectable() {
+        return true;
+    }
+
+    /**
+     * Breaks ties in auto-detection: stricter protocols (checksums, fixed length) should
+     * rank above lenient ones.
+     */
+    default int getPriority() {
+        return 0;
+    }
+}
@@ -0,0 +1,46 @@
+package com.ridwanharts.scalemonitor.codec;
+
+import com.ridwanharts.scalemonitor.model.WeightReading;
+
+/**
+ * Stateful decoder of one byte stream. Bytes arrive in arbitrary slices; frames split
+ * across slices must be reassembled by the decoder. Called from one thread at a time.
+ *
+ * @author ridwan
+ */
+public interface ScaleDecoder {
+
+    /**
+     * Decode {@code buf[off..off+len)}; the slice is not retained after the call returns.
+     */
+    void decode(byte[] buf, int off, int len, DecodeSink sink);
+
+    /**
+     * Discard any partially received frame.
+     */
+    void reset();
+
+    /**
+     * Frames this decoder recognised so far; used to score auto-detection.
+     */
+    long getValidFrames();
+
+    /**
+     * Frames that looked like this protocol but failed validation (checksum, format).
+     */
+    long getInvalidFrames();
+
+    /**
+     * Whether a reading or text line this decoder just delivered answers {@code command},
+     * the oldest request still waiting. Output rejected here goes to the listeners as usual
+     * but never completes a request; decode errors never do. The default accepts any
+     * reading or non-empty line, which suits scales that only talk when asked; decoders
+     * should accept no unsolicited output when {@link DecoderContext#isContinuousOutput()}.
+     *
+     * @param reading the decoded reading, or null for text
+     * @param text the decoded line, or null for a reading
+     */
+    default boolean isReplyTo(String command, WeightReading reading, String text) {
+        return reading != null || (text != null && !text.isEmpty());
+    }
+}
@@ -4,9 +4,17 @@
  */
 package com.ridwanharts.scalemonitor.controller;
 
+import com.ridwanharts.scalemonitor.history.HistoryStore;
+import com.ridwanharts.scalemonitor.history.WeightHistory;
+import com.ridwanharts.scalemonitor.metrics.MetricsRegistry;
+import com.ridwanharts.scalemonitor.metrics.PortMetrics;
+import com.ridwanharts.scalemonitor.service.PortWatcher;
+import com.ridwanharts.scalemonitor.model.WeightReading;
 import com.ridwanharts.scalemonitor.service.SerialService;
-import com.ridwanharts.scalemonitor.util.WeightParser;
 import java.util.List;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -15,6 +23,8 @@ import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
 
 /**
  *
@@ -22,6 +32,9 @@ import javafx.scene.control.TextArea;
  */
 public class ScaleController {
 
+    private static final long COMMAND_TIMEOUT_MILLIS = 2000;
+    private static final long TREND_MILLIS = 60_000; // range shown next to the port counters
+
     @FXML private ComboBox<String> portBox;
     @FXML private ComboBox<Integer> baudBox;
     @FXML private Button btnRefresh;
@@ -35,13 +48,36 @@ public class ScaleController {
     @FXML private ChoiceBox<String> formatChoice;
     @FXML private ComboBox<String> parseModeBox;
     @FXML private Button btnClear;
+    @FXML private Label statsLabel;
+    @FXML private TextField commandField;
+    @FXML private Button btnSend;
 
     private SerialService serialService;
-    private final WeightParser parser = new WeightParser();
+    private UiUpdatePump uiPump;
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private final HistoryStore history = new HistoryStore(100_000);
+    private PortWatcher portWatcher;
 
     @FXML
     private void initialize() {
         serialService = new SerialService();
+        uiPump = new UiUpdatePump(rawArea, weightLabel, this::status);
+        // readings arrive on a background thread; the pump coalesces them per display pulse
+        serialService.setReadingListener(r -> {
+            history.onReading(r);
+            uiPump.postReading(r);
+        });
+        uiPump.start();
+
+        // a pulled cable is reopened in the background, 0.5 s .. 10 s apart
+        serialService.setAutoReconnect(500, 10_000);
+        serialService.setConnectionListener((port, connected) -> Platform.runLater(() ->
+                status(connected ? "Reconnected to " + port : "Connection to " + port + " lost, reconnecting...")));
+
+        // counters are updated lock-free by the serial threads, sample them once a second
+        Timeline statsRefresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> updateStats()));
+        statsRefresh.setCycleCount(Animation.INDEFINITE);
+        statsRefresh.play();
 
         // fill baud rates & format options
         baudBox.getItems().addAll(9600, 19200, 38400, 57600, 115200);
@@ -51,25 +87,47 @@ public class ScaleController {
         formatChoice.setValue("8N1");
 
         // fill parse mode options
-        parseModeBox.getItems().addAll("RAW_DEBUG", "LINE_BASED", "FRAME_PARSER");
+        parseModeBox.getItems().addAll("RAW_DEBUG", "LINE_BASED", "FRAME_PARSER", "AUTO_DETECT");
         parseModeBox.setValue("RAW_DEBUG");
         parseModeBox.setOnAction(e -> changeParseModeFromUI());
 
-        updatePorts();
+        // enumerating ports can take seconds, keep it off the FX thread
+        portWatcher = new PortWatcher((ports, added, removed) ->
+                Platform.runLater(() -> showPorts(ports, added, removed)));
+        portWatcher.start(2000);
 
         btnRefresh.setOnAction(e -> updatePorts());
         btnConnect.setOnAction(e -> connect());
         btnDisconnect.setOnAction(e -> disconnect());
+        chkCR.setOnAction(e -> applyTerminator());
+        chkLF.setOnAction(e -> applyTerminator());
+        applyTerminator();
+        btnSend.setOnAction(e -> sendCommand());
+        commandField.setOnAction(e -> sendCommand());
         btnClear.setOnAction(e -> {
-            rawArea.clear();
+            uiPump.clearRaw();
             weightLabel.setText("0.0 kg");
         });
     }
 
     private void updatePorts() {
-        List<String> ports = serialService.listPorts();
+        status("Refreshing ports...");
+        portWatcher.refresh().thenAccept(ports -> Platform.runLater(() -> status("Ports refreshed: " + ports.size())));
+    }
+
+    private void showPorts(List<String> ports, List<String> added, List<String> removed) {
+        String selected = portBox.getValue();
         portBox.getItems().setAll(ports);
-        status("Ports refreshed: " + ports.size());
+        if (selected != null && ports.contains(selected)) {
+            portBox.setValue(selected);
+        }
+        if (!added.isEmpty() && !removed.isEmpty()) {
+            status("Ports added: " + added + ", removed: " + removed);
+        } else if (!added.isEmpty()) {
+            status("Ports added: " + added);
+        } else if (!removed.isEmpty()) {
+            status("Ports removed: " + removed);
+        }
     }
 
     private void connect() {
@@ -82,19 +140,19 @@ public class ScaleController {
 
         btnConnect.setDisable(true);
         status("Opening " + port + " @ " + baud + "...");
-        serialService.open(port, baud, (raw) -> {
-            // data callback from background thread
-            Platform.runLater(() -> {
-                rawArea.appendText(raw + System.lineSeparator());
-                String w = parser.parseWeight(raw);
-                if (w != null && !w.isEmpty()) {
-                    weightLabel.setText(w + " kg");
-                }
-            });
-        }, error -> {
-            Platform.runLater(() -> status("Error: " + error));
+        boolean opened = serialService.open(port, baud, uiPump::postText, error -> {
+            uiPump.postError(error);
             System.err.println("Serial error: " + error);
         });
+        if (!opened) {
+            // nothing to watch or reconnect, let the user pick another port or retry
+            btnConnect.setDisable(false);
+            status("Unable to open " + port + " @ " + baud);
+            return;
+        }
+
+        PortMetrics metrics = serialService.getMetrics();
+        if (metrics != null) metricsRegistry.register(metrics); // also visible in JConsole
 
         btnDisconnect.setDisable(false);
         status("Connected to " + port);
@@ -102,11 +160,62 @@ public class ScaleController {
 
     private void disconnect() {
         serialService.close();
+        PortMetrics metrics = serialService.getMetrics();
+        if (metrics != null) metricsRegistry.unregister(metrics);
         btnConnect.setDisable(false);
         btnDisconnect.setDisable(true);
         status("Disconnected");
     }
 
+    private void applyTerminator() {
+        serialService.setCommandTerminator((chkCR.isSelected() ? "\r" : "") + (chkLF.isSelected() ? "\n" : ""));
+    }
+
+    private void sendCommand() {
+        String command = commandField.getText();
+        if (command == null || command.isEmpty()) return;
+        if (!serialService.isOpen()) {
+            status("Connect first.");
+            return;
+        }
+        status("Sent " + command + ", waiting for reply...");
+        // the reply arrives on the parsing thread
+        serialService.request(command, COMMAND_TIMEOUT_MILLIS).whenComplete((reply, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                status("Reply to " + command + ": " + reply);
+            } else {
+                Throwable cause = (error.getCause() != null) ? error.getCause() : error;
+                status("No reply to " + command + ": " + cause.getMessage());
+            }
+        }));
+    }
+
+    private void updateStats() {
+        PortMetrics metrics = serialService.getMetrics();
+        if (metrics != null) {
+            statsLabel.setText(metrics.snapshot().format() + trend());
+        }
+    }
+
+    /**
+     * Weight range of the last minute from the history, or "" before the first weight.
+     */
+    private String trend() {
+        WeightHistory h = history.history(HistoryStore.DEFAULT_SCALE);
+        long now = System.currentTimeMillis();
+        long[] range = {Long.MAX_VALUE, Long.MIN_VALUE};
+        h.forEachSecond(now - TREND_MILLIS, now, (start, min, max, avg, count) -> {
+            range[0] = Math.min(range[0], min);
+            range[1] = Math.max(range[1], max);
+        });
+        if (range[0] > range[1]) return "";
+        StringBuilder out = new StringBuilder("  |  1 min: ");
+        WeightReading.appendDecimal(out, range[0], h.getScale());
+        out.append(" .. ");
+        WeightReading.appendDecimal(out, range[1], h.getScale());
+        return out.append(' ').append(h.getUnit()).toString();
+    }
+
     private void changeParseModeFromUI() {
         String selectedMode = parseModeBox.getValue();
         if (selectedMode != null) {
@@ -0,0 +1,182 @@
+package com.ridwanharts.scalemonitor.controller;
+
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import com.ridwanharts.scalemonitor.util.WeightParser;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextArea;
+
+/**
+ * Moves serial output onto the FX thread once per display pulse instead of once per event.
+ * <p>
+ * Background threads only record what happened: the latest reading, the latest text line
+ * and error, and a bounded backlog of raw log lines (oldest dropped first). Each pulse
+ * shows the latest value, appends the backlog to the raw view in one go and trims the
+ * view to the most recent {@link #MAX_RAW_LINES} lines, so FX-thread work and memory stay
+ * flat no matter how fast the device streams. Lines end in {@code \n} and lose the control
+ * characters TextArea would strip anyway, so the recorded lengths match what the view holds.
+ *
+ * @author ridwan
+ */
+class UiUpdatePump extends AnimationTimer {
+
+    static final int MAX_RAW_LINES = 500;
+    private static final int MAX_PENDING_LINES = 2 * MAX_RAW_LINES;
+
+    private final TextArea rawArea;
+    private final Label weightLabel;
+    private final Consumer<String> status;
+    private final WeightParser parser = new WeightParser(); // FX thread only
+
+    // written by background threads, guarded by lock
+    private final Object lock = new Object();
+    private final WeightReading pendingReading = new WeightReading();
+    private boolean readingPending;
+    private String pendingText;
+    private String pendingError;
+    private final ArrayDeque<String> pendingLines = new ArrayDeque<>();
+    private long droppedLines;
+
+    // FX thread only
+    private final WeightReading shownReading = new WeightReading();
+    private final List<String> batch = new ArrayList<>();
+    private final StringBuilder appendBuf = new StringBuilder();
+    private final int[] shownLengths = new int[MAX_RAW_LINES]; // ring of line lengths in rawArea
+    private int shownHead;
+    private int shownCount;
+
+    UiUpdatePump(TextArea rawArea, Label weightLabel, Consumer<String> status) {
+        this.rawArea = rawArea;
+        this.weightLabel = weightLabel;
+        this.status = status;
+    }
+
+    /**
+     * A typed reading; only the latest one per pulse is shown. May be a reused instance.
+     */
+    void postReading(WeightReading reading) {
+        String line = reading.toString();
+        synchronized (lock) {
+            pendingReading.copyFrom(reading);
+            readingPending = true;
+            addLine(line);
+        }
+    }
+
+    /**
+     * A text line from LINE_BASED / RAW_DEBUG mode; logged, and the latest one is parsed
+     * for the weight label.
+     */
+    void postText(String text) {
+        synchronized (lock) {
+            pendingText = text;
+            addLine(text);
+        }
+    }
+
+    void postError(String error) {
+        synchronized (lock) {
+            pendingError = error;
+        }
+    }
+
+    private void addLine(String line) {
+        if (pendingLines.size() == MAX_PENDING_LINES) {
+            pendingLines.pollFirst();
+            droppedLines++;
+        }
+        pendingLines.addLast(line);
+    }
+
+    /**
+     * Empty the raw view (FX thread).
+     */
+    void clearRaw() {
+        rawArea.clear();
+        shownHead = 0;
+        shownCount = 0;
+    }
+
+    @Override
+    public void handle(long now) {
+        boolean showReading;
+        String text;
+        String error;
+        long dropped;
+        synchronized (lock) {
+            showReading = readingPending;
+            if (showReading) {
+                shownReading.copyFrom(pendingReading);
+                readingPending = false;
+            }
+            text = pendingText;
+            pendingText = null;
+            error = pendingError;
+            pendingError = null;
+            dropped = droppedLines;
+            droppedLines = 0;
+            batch.addAll(pendingLines);
+            pendingLines.clear();
+        }
+
+        if (showReading) {
+            weightLabel.setText(shownReading.toString());
+        }
+        if (text != null) {
+            String w = parser.parseWeight(text);
+            if (w != null && !w.isEmpty()) {
+                weightLabel.setText(w + " kg");
+            }
+        }
+        if (error != null) {
+            status.accept("Error: " + error);
+        }
+        if (dropped > 0) {
+            batch.add(0, "... " + dropped + " lines skipped ...");
+        }
+        if (!batch.isEmpty()) {
+            appendLines();
+            batch.clear();
+        }
+    }
+
+    private void appendLines() {
+        // only the last MAX_RAW_LINES of the batch can survive the trim
+        int from = Math.max(0, batch.size() - MAX_RAW_LINES);
+        int removeChars = 0;
+        appendBuf.setLength(0);
+        for (int i = from; i < batch.size(); i++) {
+            int start = appendBuf.length();
+            appendVisible(batch.get(i));
+            appendBuf.append('\n');
+            if (shownCount == MAX_RAW_LINES) {
+                removeChars += shownLengths[shownHead];
+                shownHead = (shownHead + 1) % MAX_RAW_LINES;
+                shownCount--;
+            }
+            shownLengths[(shownHead + shownCount) % MAX_RAW_LINES] = appendBuf.length() - start;
+            shownCount++;
+        }
+        if (removeChars > 0) {
+            rawArea.deleteText(0, Math.min(removeChars, rawArea.getLength()));
+        }
+        rawArea.appendText(appendBuf.toString());
+    }
+
+    /**
+     * Append {@code line} without the characters TextArea drops on insert (controls other
+     * than tab and newline, and DEL), e.g. the CR of CRLF frames.
+     */
+    private void appendVisible(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if ((c >= 0x20 && c != 0x7F) || c == '\t' || c == '\n') {
+                appendBuf.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.ridwanharts.scalemonitor.filter;
+
+/**
+ * A state change reported by {@link StabilityDetector}. Like
+ * {@link com.ridwanharts.scalemonitor.model.WeightReading} the instance is reused; copy
+ * what you need inside the callback.
+ *
+ * @author ridwan
+ */
+public final class ScaleEvent {
+
+    public enum Type {
+        STABLE,        // weight settled (or settled at a new value)
+        ZERO,          // weight settled within the zero band
+        MOTION,        // weight started moving
+        TARE,          // switched from gross to net
+        TARE_CLEARED,  // switched from net back to gross
+        OVERLOAD,      // "OL" frames started
+        UNDERLOAD      // "LO" frames started
+    }
+
+    private Type type;
+    private String scaleId;
+    private long weight;
+    private int scale;
+    private String unit;
+    private long timestampNanos;
+
+    ScaleEvent set(Type type, String scaleId, long weight, int scale, String unit, long timestampNanos) {
+        this.type = type;
+        this.scaleId = scaleId;
+        this.weight = weight;
+        this.scale = scale;
+        this.unit = unit;
+        this.timestampNanos = timestampNanos;
+        return this;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getScaleId() {
+        return scaleId;
+    }
+
+    /**
+     * Settled weight for STABLE / ZERO (window average), otherwise the last raw weight.
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    public double toDouble() {
+        return weight / Math.pow(10, scale);
+    }
+
+    @Override
+    public String toString() {
+        return type + (scaleId != null ? "[" + scaleId + "]" : "") + " " + toDouble() + " " + unit;
+    }
+}
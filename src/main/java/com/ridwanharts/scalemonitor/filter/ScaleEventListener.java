@@ -0,0 +1,12 @@
+package com.ridwanharts.scalemonitor.filter;
+
+/**
+ * Receives events from a {@link StabilityDetector}.
+ *
+ * @author ridwan
+ */
+@FunctionalInterface
+public interface ScaleEventListener {
+
+    void onEvent(ScaleEvent event);
+}
@@ -0,0 +1,236 @@
+package com.ridwanharts.scalemonitor.filter;
+
+import com.ridwanharts.scalemonitor.model.ReadingListener;
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import java.util.Arrays;
+
+/**
+ * Turns the raw reading stream of one scale into a few meaningful events.
+ * <p>
+ * Each reading optionally passes a small moving median (spike rejection) and then enters
+ * a time window kept in primitive rings. A running sum gives the moving average and
+ * monotonic min/max queues give the spread, so every sample costs O(1) amortized.
+ * The weight counts as settled when the window spans at least {@code windowMillis} and its spread
+ * is within {@code tolerance}; settling near zero is reported as {@link ScaleEvent.Type#ZERO}.
+ * When the window holds more samples than the rings do (fast streams, long windows), the
+ * oldest samples are folded into a min/max of their own instead of being forgotten, so
+ * the window still reaches back {@code windowMillis}.
+ * Events are only emitted on a state change: stable/zero at a new value, motion,
+ * gross/net (tare) switches and the start of OL/LO.
+ * <p>
+ * Use one detector per scale, fed from a single thread, e.g. as the reading listener of
+ * a {@link com.ridwanharts.scalemonitor.service.SerialService}.
+ *
+ * @author ridwan
+ */
+public class StabilityDetector implements ReadingListener {
+
+    private enum State { NONE, MOTION, STABLE, ZERO, OVERLOAD, UNDERLOAD }
+
+    private static final int CAPACITY = 1024; // most samples kept in the window
+    private static final int MASK = CAPACITY - 1;
+
+    private final double toleranceUnits;
+    private final double zeroBandUnits;
+    private final long windowNanos;
+    private final ScaleEventListener listener;
+    private final ScaleEvent event = new ScaleEvent();
+
+    // time window, indexed by ever-increasing sample positions
+    private final long[] times = new long[CAPACITY];
+    private final long[] values = new long[CAPACITY];
+    private long head;
+    private long tail;
+    private long sum;
+    private final long[] minQ = new long[CAPACITY]; // positions with increasing values
+    private final long[] maxQ = new long[CAPACITY]; // positions with decreasing values
+    private long minHead, minTail, maxHead, maxTail;
+    // samples pushed out of the full rings that still belong to the window
+    private boolean overflowed;
+    private long overflowSince;
+    private long overflowMin, overflowMax;
+
+    // moving median prefilter
+    private final long[] medianRing;
+    private final long[] medianSorted;
+    private int medianCount;
+    private int medianPos;
+
+    private int scale = -1;          // fixed-point scale of the samples in the window
+    private long tolerance;
+    private long zeroBand;
+    private State state = State.NONE;
+    private WeightReading.Mode lastMode;
+    private long settledWeight;
+
+    /**
+     * @param tolerance largest spread (in weight units, e.g. 0.005 kg) that still counts as stable
+     * @param windowMillis how long the weight must stay within tolerance
+     * @param zeroBand settled weights within +/- this are reported as ZERO
+     * @param medianWindow odd moving-median length applied first, 1 to disable
+     */
+    public StabilityDetector(double tolerance, long windowMillis, double zeroBand, int medianWindow,
+                             ScaleEventListener listener) {
+        if (medianWindow < 1 || medianWindow % 2 == 0) {
+            throw new IllegalArgumentException("medianWindow must be odd and >= 1");
+        }
+        this.toleranceUnits = tolerance;
+        this.zeroBandUnits = zeroBand;
+        this.windowNanos = windowMillis * 1_000_000L;
+        this.listener = listener;
+        this.medianRing = new long[medianWindow];
+        this.medianSorted = new long[medianWindow];
+    }
+
+    @Override
+    public void onReading(WeightReading r) {
+        long now = r.getTimestampNanos();
+        switch (r.getStatus()) {
+            case OVERLOAD:
+                enterFault(State.OVERLOAD, ScaleEvent.Type.OVERLOAD, r);
+                return;
+            case UNDERLOAD:
+                enterFault(State.UNDERLOAD, ScaleEvent.Type.UNDERLOAD, r);
+                return;
+            default:
+                break;
+        }
+
+        WeightReading.Mode mode = r.getMode();
+        if (lastMode == WeightReading.Mode.GROSS && mode == WeightReading.Mode.NET) {
+            reset();
+            emit(ScaleEvent.Type.TARE, r, r.getWeight());
+        } else if (lastMode == WeightReading.Mode.NET && mode == WeightReading.Mode.GROSS) {
+            reset();
+            emit(ScaleEvent.Type.TARE_CLEARED, r, r.getWeight());
+        }
+        lastMode = mode;
+
+        if (r.getScale() != scale) {
+            reset();
+            scale = r.getScale();
+            double factor = Math.pow(10, scale);
+            tolerance = Math.round(toleranceUnits * factor);
+            zeroBand = Math.round(zeroBandUnits * factor);
+        }
+
+        push(now, median(r.getWeight()));
+
+        long min = values[(int) (minQ[(int) (minHead & MASK)] & MASK)];
+        long max = values[(int) (maxQ[(int) (maxHead & MASK)] & MASK)];
+        if (overflowed) {
+            min = Math.min(min, overflowMin);
+            max = Math.max(max, overflowMax);
+        }
+        if (max - min > tolerance) {
+            overflowed = false; // restart the window at the rings
+            if (state != State.MOTION) {
+                state = State.MOTION;
+                emit(ScaleEvent.Type.MOTION, r, r.getWeight());
+            }
+            return;
+        }
+        long since = overflowed ? overflowSince : times[(int) (head & MASK)];
+        if (now - since < windowNanos) {
+            return; // not settled for long enough yet
+        }
+
+        long count = tail - head;
+        long avg = Math.round((double) sum / count);
+        State target = (Math.abs(avg) <= zeroBand) ? State.ZERO : State.STABLE;
+        if (state != target || Math.abs(avg - settledWeight) > tolerance) {
+            state = target;
+            settledWeight = avg;
+            emit(target == State.ZERO ? ScaleEvent.Type.ZERO : ScaleEvent.Type.STABLE, r, avg);
+        }
+    }
+
+    private void enterFault(State fault, ScaleEvent.Type type, WeightReading r) {
+        if (state != fault) {
+            state = fault;
+            reset();
+            emit(type, r, 0);
+        }
+    }
+
+    private void emit(ScaleEvent.Type type, WeightReading r, long weight) {
+        listener.onEvent(event.set(type, r.getScaleId(), weight, Math.max(r.getScale(), 0),
+                r.getUnit(), r.getTimestampNanos()));
+    }
+
+    private void push(long now, long value) {
+        // drop the oldest sample while the next one alone still spans the window, so the
+        // window always reaches back at least windowNanos once enough time has passed;
+        // when the ring is full, keep the oldest one in the overflow min/max instead
+        while (tail > head) {
+            if (tail - head > 1 && now - times[(int) ((head + 1) & MASK)] >= windowNanos) {
+                overflowed = false; // the ring alone spans the window again
+            } else if (tail - head == CAPACITY) {
+                overflow(times[(int) (head & MASK)], values[(int) (head & MASK)]);
+            } else {
+                break;
+            }
+            evictHead();
+        }
+        int i = (int) (tail & MASK);
+        times[i] = now;
+        values[i] = value;
+        sum += value;
+
+        while (minTail > minHead && values[(int) (minQ[(int) ((minTail - 1) & MASK)] & MASK)] >= value) minTail--;
+        minQ[(int) (minTail++ & MASK)] = tail;
+        while (maxTail > maxHead && values[(int) (maxQ[(int) ((maxTail - 1) & MASK)] & MASK)] <= value) maxTail--;
+        maxQ[(int) (maxTail++ & MASK)] = tail;
+        tail++;
+    }
+
+    private void overflow(long time, long value) {
+        if (!overflowed) {
+            overflowed = true;
+            overflowSince = time;
+            overflowMin = overflowMax = value;
+        } else {
+            overflowMin = Math.min(overflowMin, value);
+            overflowMax = Math.max(overflowMax, value);
+        }
+    }
+
+    private void evictHead() {
+        sum -= values[(int) (head & MASK)];
+        if (minQ[(int) (minHead & MASK)] == head) minHead++;
+        if (maxQ[(int) (maxHead & MASK)] == head) maxHead++;
+        head++;
+    }
+
+    private long median(long value) {
+        int n = medianRing.length;
+        if (n == 1) return value;
+        if (medianCount == n) {
+            // remove the value leaving the window from the sorted copy
+            long old = medianRing[medianPos];
+            int at = Arrays.binarySearch(medianSorted, 0, medianCount, old);
+            System.arraycopy(medianSorted, at + 1, medianSorted, at, medianCount - at - 1);
+            medianCount--;
+        }
+        medianRing[medianPos] = value;
+        medianPos = (medianPos + 1) % n;
+        int at = Arrays.binarySearch(medianSorted, 0, medianCount, value);
+        if (at < 0) at = -at - 1;
+        System.arraycopy(medianSorted, at, medianSorted, at + 1, medianCount - at);
+        medianSorted[at] = value;
+        medianCount++;
+        return medianSorted[medianCount / 2];
+    }
+
+    private void reset() {
+        head = tail = 0;
+        sum = 0;
+        minHead = minTail = maxHead = maxTail = 0;
+        overflowed = false;
+        medianCount = 0;
+        medianPos = 0;
+        if (state == State.STABLE || state == State.ZERO) {
+            state = State.NONE;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.ridwanharts.scalemonitor.headless;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Settings of the headless launcher, read from a properties file and/or the command line
+ * (command line wins).
+ * <pre>
+ * scale.&lt;id&gt; = COM3@9600 | tcp:host:port | replay:dir/name#port   (--scale id=spec, repeatable)
+ * http.port = 8080          0 = no HTTP server                   (--http 8080)
+ * http.bind = 0.0.0.0
+ * capture.dir = /var/lib/scalemonitor   record raw bytes there   (--capture dir)
+ * capture.segmentMB = 64
+ * log = events              events | readings | none              (--log readings)
+ * queue.capacity = 4096
+ * reconnect.initialMillis = 1000   reopen dropped links, doubling the wait, 0 = off
+ * reconnect.maxMillis = 30000
+ * metrics.logSeconds = 60  print port counters periodically, 0 = off
+ * sink.dir = /var/lib/scalemonitor/out  write CSV/NDJSON files there     (--sink dir)
+ * sink.format = csv         csv | ndjson
+ * sink.fileMB = 64
+ * sink.jdbc.url = jdbc:postgresql://db/plant   insert into a database instead of files
+ * sink.jdbc.user, sink.jdbc.password
+ * sink.jdbc.table = weight_log
+ * sink.jdbc.createTable = false
+ * sink.records = events     events | readings   what to persist
+ * sink.spillDir = &lt;sink.dir or capture.dir&gt;/spill   park batches there while the target is slow
+ * sink.batchSize = 500
+ * sink.flushMillis = 1000
+ * poll.command = P         poll the scales with this command (polled-mode scales)
+ * poll.terminator = \r\n   appended to every command
+ * poll.rate = 10            polls per second over all scales, round-robin
+ * poll.timeoutMillis = 500
+ * stability.tolerance = 0.005
+ * stability.windowMillis = 1000
+ * stability.zeroBand = 0.005
+ * stability.median = 3
+ * </pre>
+ *
+ * @author ridwan
+ */
+final class HeadlessConfig {
+
+    enum LogMode { EVENTS, READINGS, NONE }
+
+    final Map<String, String> scales = new LinkedHashMap<>();
+    int httpPort;
+    String httpBind = "0.0.0.0";
+    Path captureDir;
+    long captureSegmentBytes = 64L << 20;
+    LogMode log = LogMode.EVENTS;
+    int queueCapacity = 4096;
+    long reconnectInitialMillis = 1000;
+    long reconnectMaxMillis = 30_000;
+    long metricsLogSeconds;
+    Path sinkDir;
+    String sinkFormat = "csv";
+    long sinkFileBytes = 64L << 20;
+    String jdbcUrl;
+    String jdbcUser;
+    String jdbcPassword;
+    String jdbcTable = "weight_log";
+    boolean jdbcCreateTable;
+    boolean sinkReadings;
+    Path spillDir;
+    int sinkBatchSize = 500;
+    long sinkFlushMillis = 1000;
+    String pollCommand;
+    String pollTerminator = "\r\n";
+    double pollRate = 10;
+    long pollTimeoutMillis = 500;
+    double tolerance = 0.005;
+    long windowMillis = 1000;
+    double zeroBand = 0.005;
+    int median = 3;
+
+    static HeadlessConfig parse(String[] args) throws IOException {
+        HeadlessConfig config = new HeadlessConfig();
+        // the config file is applied first so the other options can override it
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals("--config")) {
+                config.load(Paths.get(args[i + 1]));
+            }
+        }
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--config": break;
+                case "--scale": config.addScale(value); break;
+                case "--http": config.httpPort = Integer.parseInt(value); break;
+                case "--capture": config.captureDir = Paths.get(value); break;
+                case "--sink": config.sinkDir = Paths.get(value); break;
+                case "--log": config.log = LogMode.valueOf(value.toUpperCase(Locale.ROOT)); break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (config.scales.isEmpty()) {
+            throw new IllegalArgumentException("No scales configured");
+        }
+        return config;
+    }
+
+    private void addScale(String idAndSpec) {
+        int eq = idAndSpec.indexOf('=');
+        if (eq <= 0) {
+            throw new IllegalArgumentException("Expected id=spec: " + idAndSpec);
+        }
+        scales.put(idAndSpec.substring(0, eq).trim(), idAndSpec.substring(eq + 1).trim());
+    }
+
+    private void load(Path file) throws IOException {
+        Properties p = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            p.load(in);
+        }
+        for (String key : p.stringPropertyNames()) {
+            if (key.startsWith("scale.")) {
+                scales.put(key.substring("scale.".length()), p.getProperty(key).trim());
+            }
+        }
+        httpPort = Integer.parseInt(p.getProperty("http.port", String.valueOf(httpPort)).trim());
+        httpBind = p.getProperty("http.bind", httpBind).trim();
+        if (p.getProperty("capture.dir") != null) {
+            captureDir = Paths.get(p.getProperty("capture.dir").trim());
+        }
+        captureSegmentBytes = Long.parseLong(p.getProperty("capture.segmentMB",
+                String.valueOf(captureSegmentBytes >> 20)).trim()) << 20;
+        log = LogMode.valueOf(p.getProperty("log", log.name()).trim().toUpperCase(Locale.ROOT));
+        metricsLogSeconds = Long.parseLong(p.getProperty("metrics.logSeconds", String.valueOf(metricsLogSeconds)).trim());
+        reconnectInitialMillis = Long.parseLong(p.getProperty("reconnect.initialMillis",
+                String.valueOf(reconnectInitialMillis)).trim());
+        reconnectMaxMillis = Long.parseLong(p.getProperty("reconnect.maxMillis", String.valueOf(reconnectMaxMillis)).trim());
+        if (p.getProperty("sink.dir") != null) {
+            sinkDir = Paths.get(p.getProperty("sink.dir").trim());
+        }
+        sinkFormat = p.getProperty("sink.format", sinkFormat).trim();
+        sinkFileBytes = Long.parseLong(p.getProperty("sink.fileMB", String.valueOf(sinkFileBytes >> 20)).trim()) << 20;
+        jdbcUrl = p.getProperty("sink.jdbc.url", jdbcUrl);
+        jdbcUser = p.getProperty("sink.jdbc.user", jdbcUser);
+        jdbcPassword = p.getProperty("sink.jdbc.password", jdbcPassword);
+        jdbcTable = p.getProperty("sink.jdbc.table", jdbcTable).trim();
+        jdbcCreateTable = Boolean.parseBoolean(p.getProperty("sink.jdbc.createTable", String.valueOf(jdbcCreateTable)).trim());
+        sinkReadings = p.getProperty("sink.records", "events").trim().equalsIgnoreCase("readings");
+        if (p.getProperty("sink.spillDir") != null) {
+            spillDir = Paths.get(p.getProperty("sink.spillDir").trim());
+        }
+        sinkBatchSize = Integer.parseInt(p.getProperty("sink.batchSize", String.valueOf(sinkBatchSize)).trim());
+        sinkFlushMillis = Long.parseLong(p.getProperty("sink.flushMillis", String.valueOf(sinkFlushMillis)).trim());
+        pollCommand = p.getProperty("poll.command", pollCommand);
+        pollTerminator = p.getProperty("poll.terminator", pollTerminator);
+        pollRate = Double.parseDouble(p.getProperty("poll.rate", String.valueOf(pollRate)).trim());
+        pollTimeoutMillis = Long.parseLong(p.getProperty("poll.timeoutMillis", String.valueOf(pollTimeoutMillis)).trim());
+        queueCapacity = Integer.parseInt(p.getProperty("queue.capacity", String.valueOf(queueCapacity)).trim());
+        tolerance = Double.parseDouble(p.getProperty("stability.tolerance", String.valueOf(tolerance)).trim());
+        windowMillis = Long.parseLong(p.getProperty("stability.windowMillis", String.valueOf(windowMillis)).trim());
+        zeroBand = Double.parseDouble(p.getProperty("stability.zeroBand", String.valueOf(zeroBand)).trim());
+        median = Integer.parseInt(p.getProperty("stability.median", String.valueOf(median)).trim());
+    }
+}
@@ -0,0 +1,270 @@
+package com.ridwanharts.scalemonitor.headless;
+
+import com.ridwanharts.scalemonitor.capture.CaptureReader;
+import com.ridwanharts.scalemonitor.capture.CaptureReplayTransport;
+import com.ridwanharts.scalemonitor.capture.CaptureWriter;
+import com.ridwanharts.scalemonitor.filter.ScaleEventListener;
+import com.ridwanharts.scalemonitor.filter.StabilityDetector;
+import com.ridwanharts.scalemonitor.metrics.MetricsRegistry;
+import com.ridwanharts.scalemonitor.model.ReadingListener;
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import com.ridwanharts.scalemonitor.server.ReadingServer;
+import com.ridwanharts.scalemonitor.service.AcquisitionManager;
+import com.ridwanharts.scalemonitor.service.CommandResponse;
+import com.ridwanharts.scalemonitor.service.PollScheduler;
+import com.ridwanharts.scalemonitor.sink.JdbcTarget;
+import com.ridwanharts.scalemonitor.sink.ReadingSink;
+import com.ridwanharts.scalemonitor.sink.RollingFileTarget;
+import com.ridwanharts.scalemonitor.sink.SinkTarget;
+import com.ridwanharts.scalemonitor.transport.ByteTransport;
+import com.ridwanharts.scalemonitor.transport.SerialPortTransport;
+import com.ridwanharts.scalemonitor.transport.TcpTransport;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point for unattended gateways: acquisition, logging, capture, persistence and the HTTP server
+ * without the GUI. Nothing here touches a JavaFX class, so the toolkit is never loaded and
+ * the javafx modules need not be present at runtime, e.g.
+ * {@code java -p libs -m scalemonitor/com.ridwanharts.scalemonitor.headless.HeadlessMain --config gateway.properties}.
+ * See {@link HeadlessConfig} for the options.
+ *
+ * @author ridwan
+ */
+public final class HeadlessMain {
+
+    private HeadlessMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        HeadlessConfig config;
+        try {
+            config = HeadlessConfig.parse(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println("Usage: HeadlessMain [--config file] [--scale id=COM3@9600|tcp:host:port|replay:dir/name#port]..."
+                    + " [--http port] [--capture dir] [--sink dir] [--log events|readings|none]");
+            System.exit(2);
+            return;
+        }
+
+        AcquisitionManager manager = new AcquisitionManager(config.queueCapacity,
+                (id, message) -> System.err.println("[" + id + "] " + message));
+
+        manager.setAutoReconnect(config.reconnectInitialMillis, config.reconnectMaxMillis);
+        manager.setCommandTerminator(config.pollTerminator);
+
+        // port counters are always on JMX; optionally logged as well
+        MetricsRegistry metrics = new MetricsRegistry();
+        manager.setMetricsRegistry(metrics);
+        if (config.metricsLogSeconds > 0) {
+            metrics.startReporting(TimeUnit.SECONDS.toMillis(config.metricsLogSeconds),
+                    snapshots -> snapshots.forEach(s -> System.out.println("metrics " + s)));
+        }
+
+        CaptureWriter capture = null;
+        if (config.captureDir != null) {
+            capture = new CaptureWriter(config.captureDir, "capture", config.captureSegmentBytes, 1000);
+            manager.setCaptureWriter(capture);
+        }
+
+        ReadingSink sink = sink(config);
+
+        ReadingServer server = null;
+        if (config.httpPort > 0) {
+            server = new ReadingServer(new InetSocketAddress(config.httpBind, config.httpPort), 256, 512);
+            server.start();
+        }
+        manager.setReadingListener(tap(server, config.sinkReadings ? sink : null));
+
+        for (Map.Entry<String, String> e : config.scales.entrySet()) {
+            ByteTransport transport;
+            try {
+                transport = transport(e.getValue());
+            } catch (IOException | IllegalArgumentException ex) {
+                System.err.println("[" + e.getKey() + "] unable to open " + e.getValue() + ": " + ex.getMessage());
+                continue;
+            }
+            if (!manager.addScale(e.getKey(), transport)) {
+                System.err.println("[" + e.getKey() + "] unable to open " + e.getValue());
+            }
+        }
+
+        PollScheduler poller = (config.pollCommand != null) ? poller(manager, config) : null;
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        CaptureWriter captureToClose = capture;
+        ReadingServer serverToClose = server;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stopped.countDown();
+            if (poller != null) poller.close();
+            manager.close();
+            metrics.close();
+            if (serverToClose != null) serverToClose.close();
+            if (sink != null) {
+                try {
+                    sink.close();
+                } catch (IOException ex) {
+                    System.err.println("sink: " + ex.getMessage());
+                }
+            }
+            if (captureToClose != null) {
+                try {
+                    captureToClose.close();
+                } catch (IOException ex) {
+                    System.err.println("capture: " + ex.getMessage());
+                }
+            }
+        }, "headless-shutdown"));
+
+        System.out.println("Scale Monitor headless: " + config.scales.size() + " scale(s)"
+                + (server != null ? ", http port " + server.getPort() : "")
+                + ", ready in " + millisSinceJvmStart() + " ms");
+
+        consume(manager, config, config.sinkReadings ? null : sink, stopped);
+    }
+
+    /**
+     * Poll every configured scale; the replies are queued as readings like unsolicited ones.
+     */
+    private static PollScheduler poller(AcquisitionManager manager, HeadlessConfig config) {
+        PollScheduler poller = new PollScheduler(config.pollRate, new PollScheduler.Listener() {
+            @Override
+            public void onResponse(String target, CommandResponse response) {
+                // already on its way through the reading queue
+            }
+
+            @Override
+            public void onFailure(String target, Throwable error) {
+                System.err.println("[" + target + "] poll: " + error.getMessage());
+            }
+        });
+        for (String id : config.scales.keySet()) {
+            poller.addTarget(id, (command, timeout) -> manager.request(id, command, timeout),
+                    config.pollCommand, config.pollTimeoutMillis);
+        }
+        poller.start();
+        return poller;
+    }
+
+    /**
+     * The configured file or database sink, or null if none.
+     */
+    private static ReadingSink sink(HeadlessConfig config) throws IOException {
+        SinkTarget target;
+        if (config.jdbcUrl != null) {
+            JdbcTarget jdbc = new JdbcTarget(config.jdbcUrl, config.jdbcUser, config.jdbcPassword, config.jdbcTable);
+            jdbc.setCreateTable(config.jdbcCreateTable);
+            target = jdbc;
+        } else if (config.sinkDir != null) {
+            target = new RollingFileTarget(config.sinkDir, "weights",
+                    RollingFileTarget.Format.valueOf(config.sinkFormat.toUpperCase(Locale.ROOT)), config.sinkFileBytes);
+        } else {
+            return null;
+        }
+        Path spillDir = config.spillDir;
+        if (spillDir == null) {
+            Path base = (config.sinkDir != null) ? config.sinkDir : config.captureDir;
+            spillDir = (base != null) ? base.resolve("spill") : null;
+        }
+        return new ReadingSink(target, spillDir, config.queueCapacity, config.sinkBatchSize, config.sinkFlushMillis);
+    }
+
+    /**
+     * Combine the per-reading consumers; null when there are none.
+     */
+    private static ReadingListener tap(ReadingListener a, ReadingListener b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return r -> {
+            a.onReading(r);
+            b.onReading(r);
+        };
+    }
+
+    /**
+     * Drain the reading queue on the main thread and log what {@code config.log} asks for.
+     * Stability events also go to {@code eventSink} if it is not null.
+     */
+    private static void consume(AcquisitionManager manager, HeadlessConfig config, ReadingSink eventSink,
+                                CountDownLatch stopped) throws InterruptedException {
+        ScaleEventListener onEvent;
+        if (config.log == HeadlessConfig.LogMode.EVENTS && eventSink != null) {
+            onEvent = e -> {
+                System.out.println(e);
+                eventSink.onEvent(e);
+            };
+        } else if (config.log == HeadlessConfig.LogMode.EVENTS) {
+            onEvent = System.out::println;
+        } else {
+            onEvent = eventSink;
+        }
+        Map<String, StabilityDetector> detectors = new HashMap<>();
+        StringBuilder line = new StringBuilder(64);
+        while (stopped.getCount() > 0) {
+            WeightReading r = manager.poll(200, TimeUnit.MILLISECONDS);
+            if (r == null) continue;
+            if (config.log == HeadlessConfig.LogMode.READINGS) {
+                line.setLength(0);
+                line.append(r.getScaleId()).append(' ').append(r);
+                System.out.println(line);
+            }
+            if (onEvent != null) {
+                detectors.computeIfAbsent(r.getScaleId(), id -> new StabilityDetector(config.tolerance,
+                        config.windowMillis, config.zeroBand, config.median, onEvent))
+                        .onReading(r);
+            }
+        }
+    }
+
+    /**
+     * {@code COM3@9600}, {@code tcp:host:port} or {@code replay:dir/name[#port]}. The port
+     * may only be left out when the capture recorded a single one.
+     */
+    static ByteTransport transport(String spec) throws IOException {
+        if (spec.startsWith("tcp:")) {
+            int colon = spec.lastIndexOf(':');
+            return new TcpTransport(spec.substring(4, colon), Integer.parseInt(spec.substring(colon + 1)));
+        }
+        if (spec.startsWith("replay:")) {
+            String path = spec.substring("replay:".length());
+            String port = null;
+            int hash = path.lastIndexOf('#');
+            if (hash >= 0) {
+                port = path.substring(hash + 1);
+                path = path.substring(0, hash);
+            }
+            Path p = Paths.get(path);
+            Path dir = p.getParent() != null ? p.getParent() : Paths.get(".");
+            CaptureReader reader = new CaptureReader(dir, p.getFileName().toString());
+            // one decoder per scale: never mix the ports of a multi-port capture
+            Set<String> ports = reader.ports();
+            if (port == null && ports.size() == 1) {
+                port = ports.iterator().next();
+            } else if (port == null || !ports.contains(port)) {
+                throw new IllegalArgumentException((port == null ? "pick one port with replay:" + path + "#<port>"
+                        : "port " + port + " is not in the capture") + ", recorded ports: " + ports);
+            }
+            return new CaptureReplayTransport(reader, port, true);
+        }
+        int at = spec.indexOf('@');
+        if (at < 0) {
+            return new SerialPortTransport(spec, 9600);
+        }
+        return new SerialPortTransport(spec.substring(0, at), Integer.parseInt(spec.substring(at + 1)));
+    }
+
+    private static long millisSinceJvmStart() {
+        // ProcessHandle's start instant is only accurate to the second on Linux
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
@@ -0,0 +1,58 @@
+package com.ridwanharts.scalemonitor.history;
+
+import com.ridwanharts.scalemonitor.model.ReadingListener;
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link WeightHistory} per scale, fed directly as a reading listener (also works with the
+ * tagged readings of {@link com.ridwanharts.scalemonitor.service.AcquisitionManager}).
+ * Readings without a scale id are stored under {@link #DEFAULT_SCALE}.
+ *
+ * @author ridwan
+ */
+public class HistoryStore implements ReadingListener {
+
+    public static final String DEFAULT_SCALE = "default";
+
+    private final int scale;
+    private final int maxRawSamples;
+    private final long rollupRetentionMillis;
+    private final Map<String, WeightHistory> histories = new ConcurrentHashMap<>();
+
+    /**
+     * Keeps 24 h of rollups and up to {@code maxRawSamples} raw samples per scale, in grams
+     * resolution for kg readings (3 decimals).
+     */
+    public HistoryStore(int maxRawSamples) {
+        this(3, maxRawSamples, TimeUnit.HOURS.toMillis(24));
+    }
+
+    public HistoryStore(int scale, int maxRawSamples, long rollupRetentionMillis) {
+        this.scale = scale;
+        this.maxRawSamples = maxRawSamples;
+        this.rollupRetentionMillis = rollupRetentionMillis;
+    }
+
+    @Override
+    public void onReading(WeightReading reading) {
+        String id = reading.getScaleId() != null ? reading.getScaleId() : DEFAULT_SCALE;
+        history(id).add(reading);
+    }
+
+    /**
+     * History of one scale, created on first use.
+     */
+    public WeightHistory history(String scaleId) {
+        return histories.computeIfAbsent(scaleId,
+                id -> new WeightHistory(scale, maxRawSamples, rollupRetentionMillis));
+    }
+
+    public List<String> getScaleIds() {
+        return new ArrayList<>(histories.keySet());
+    }
+}
@@ -0,0 +1,292 @@
+package com.ridwanharts.scalemonitor.history;
+
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Weight trace of one scale at three resolutions: raw samples, 1 s and 1 min buckets
+ * (min / max / avg / count).
+ * <p>
+ * Raw samples live in fixed-size chunks of primitive columns (time, weight, status);
+ * when the raw limit is reached the oldest chunk is dropped, so memory is bounded.
+ * Rollups are rings of primitive columns indexed by bucket number, sized to cover the
+ * rollup retention. Weights are stored as fixed point with {@link #getScale()} decimals,
+ * in the unit of the first weighed reading with a mass unit ({@link #getUnit()}); later
+ * readings in another mass unit are converted, readings in a unit that cannot be
+ * converted are dropped and counted ({@link #getUnitMismatches()}). Until a mass unit
+ * shows up (e.g. "pcs", or no unit from a text line), the history follows whatever unit
+ * the readings carry.
+ * <p>
+ * Queries hand every sample or bucket in a time range to a visitor while holding a read
+ * lock, so nothing is copied; visitors should be quick.
+ *
+ * @author ridwan
+ */
+public class WeightHistory {
+
+    public static final int STATUS_OK = 0;
+    public static final int STATUS_OVERLOAD = 1;
+    public static final int STATUS_UNDERLOAD = 2;
+
+    private static final int CHUNK_SIZE = 4096;
+    private static final long[] POW10 = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L};
+
+    // mass units readings are converted between, in grams
+    private static final Map<String, Double> GRAMS = Map.of(
+            "mg", 0.001, "g", 1.0, "kg", 1_000.0, "t", 1_000_000.0, "lb", 453.59237, "oz", 28.349523125);
+
+    @FunctionalInterface
+    public interface SampleVisitor {
+        void visit(long timeMillis, long weight, int status);
+    }
+
+    @FunctionalInterface
+    public interface BucketVisitor {
+        void visit(long startMillis, long min, long max, long avg, int count);
+    }
+
+    private static final class Chunk {
+        final long[] time = new long[CHUNK_SIZE];
+        final long[] weight = new long[CHUNK_SIZE];
+        final byte[] status = new byte[CHUNK_SIZE];
+        int size;
+    }
+
+    /**
+     * Fixed-capacity ring of buckets; slot = bucket number mod capacity.
+     */
+    private static final class Rollup {
+        final long bucketMillis;
+        final long[] bucket;
+        final long[] min;
+        final long[] max;
+        final long[] sum;
+        final int[] count;
+
+        Rollup(long bucketMillis, long retentionMillis) {
+            this.bucketMillis = bucketMillis;
+            int capacity = (int) Math.max(1, retentionMillis / bucketMillis);
+            bucket = new long[capacity];
+            Arrays.fill(bucket, -1);
+            min = new long[capacity];
+            max = new long[capacity];
+            sum = new long[capacity];
+            count = new int[capacity];
+        }
+
+        void add(long timeMillis, long w) {
+            long b = Math.floorDiv(timeMillis, bucketMillis);
+            int i = (int) Math.floorMod(b, (long) bucket.length);
+            if (bucket[i] != b) {
+                bucket[i] = b;
+                min[i] = w;
+                max[i] = w;
+                sum[i] = w;
+                count[i] = 1;
+            } else {
+                if (w < min[i]) min[i] = w;
+                if (w > max[i]) max[i] = w;
+                sum[i] += w;
+                count[i]++;
+            }
+        }
+
+        void forEach(long fromMillis, long toMillis, BucketVisitor visitor) {
+            long first = Math.floorDiv(fromMillis, bucketMillis);
+            long last = Math.floorDiv(toMillis, bucketMillis);
+            // never walk more than one lap of the ring
+            first = Math.max(first, last - bucket.length + 1);
+            for (long b = first; b <= last; b++) {
+                int i = (int) Math.floorMod(b, (long) bucket.length);
+                if (bucket[i] == b) {
+                    visitor.visit(b * bucketMillis, min[i], max[i], Math.round((double) sum[i] / count[i]), count[i]);
+                }
+            }
+        }
+    }
+
+    private final int scale;
+    private final int maxRawChunks;
+    private final ArrayDeque<Chunk> raw = new ArrayDeque<>();
+    private final Rollup seconds;
+    private final Rollup minutes;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicReference<String> unit = new AtomicReference<>();
+    private final AtomicLong unitMismatches = new AtomicLong();
+
+    /**
+     * @param scale decimals kept for weights (0..6)
+     * @param maxRawSamples raw samples kept before the oldest chunk is evicted
+     * @param rollupRetentionMillis time covered by the 1 s and 1 min rollups
+     */
+    public WeightHistory(int scale, int maxRawSamples, long rollupRetentionMillis) {
+        if (scale < 0 || scale >= POW10.length) throw new IllegalArgumentException("scale must be 0..6");
+        this.scale = scale;
+        this.maxRawChunks = Math.max(1, (maxRawSamples + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        this.seconds = new Rollup(TimeUnit.SECONDS.toMillis(1), rollupRetentionMillis);
+        this.minutes = new Rollup(TimeUnit.MINUTES.toMillis(1), rollupRetentionMillis);
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Unit of the stored weights, fixed by the first weighed reading with a mass unit;
+     * before that the unit of the latest weighed reading, or null before the first.
+     */
+    public String getUnit() {
+        return unit.get();
+    }
+
+    /**
+     * Readings dropped because their unit could not be converted to {@link #getUnit()}.
+     */
+    public long getUnitMismatches() {
+        return unitMismatches.get();
+    }
+
+    /**
+     * Record a reading; its nanoTime stamp is converted to wall-clock time and its weight
+     * to {@link #getUnit()}.
+     */
+    public void add(WeightReading r) {
+        long timeMillis = r.getTimestampMillis();
+        int status;
+        switch (r.getStatus()) {
+            case OVERLOAD: status = STATUS_OVERLOAD; break;
+            case UNDERLOAD: status = STATUS_UNDERLOAD; break;
+            default: status = STATUS_OK;
+        }
+        long weight = 0;
+        if (status == STATUS_OK) {
+            String from = (r.getUnit() != null) ? r.getUnit() : "";
+            String to = unit.get();
+            // adopt the reading's unit until the history has a mass unit to convert to
+            while (to == null || (!to.equals(from) && !isMassUnit(to))) {
+                if (unit.compareAndSet(to, from)) {
+                    to = from;
+                    break;
+                }
+                to = unit.get();
+            }
+            if (from.equals(to)) {
+                weight = rescale(r.getWeight(), r.getScale());
+            } else {
+                Double fromGrams = GRAMS.get(from.toLowerCase(Locale.ROOT));
+                Double toGrams = GRAMS.get(to.toLowerCase(Locale.ROOT));
+                if (fromGrams == null || toGrams == null) {
+                    unitMismatches.incrementAndGet();
+                    return;
+                }
+                weight = Math.round(r.getWeight() * fromGrams / toGrams * Math.pow(10, scale - r.getScale()));
+            }
+        }
+        add(timeMillis, weight, status);
+    }
+
+    private static boolean isMassUnit(String unit) {
+        return GRAMS.containsKey(unit.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Record a sample already in this history's scale and unit. Times should not go backwards.
+     */
+    public void add(long timeMillis, long weight, int status) {
+        lock.writeLock().lock();
+        try {
+            Chunk c = raw.peekLast();
+            if (c == null || c.size == CHUNK_SIZE) {
+                c = (raw.size() == maxRawChunks) ? raw.pollFirst() : new Chunk(); // reuse the evicted chunk
+                c.size = 0;
+                raw.addLast(c);
+            }
+            c.time[c.size] = timeMillis;
+            c.weight[c.size] = weight;
+            c.status[c.size] = (byte) status;
+            c.size++;
+
+            if (status == STATUS_OK) {
+                seconds.add(timeMillis, weight);
+                minutes.add(timeMillis, weight);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Visit raw samples with {@code from <= time <= to}, oldest first.
+     */
+    public void forEachRaw(long fromMillis, long toMillis, SampleVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            for (Chunk c : raw) {
+                if (c.size == 0 || c.time[c.size - 1] < fromMillis) continue;
+                if (c.time[0] > toMillis) break;
+                int i = Arrays.binarySearch(c.time, 0, c.size, fromMillis);
+                if (i < 0) {
+                    i = -i - 1;
+                } else {
+                    while (i > 0 && c.time[i - 1] == fromMillis) i--; // first of equal stamps
+                }
+                for (; i < c.size && c.time[i] <= toMillis; i++) {
+                    visitor.visit(c.time[i], c.weight[i], c.status[i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visit 1 s buckets overlapping {@code [from, to]}, oldest first.
+     */
+    public void forEachSecond(long fromMillis, long toMillis, BucketVisitor visitor) {
+        forEach(seconds, fromMillis, toMillis, visitor);
+    }
+
+    /**
+     * Visit 1 min buckets overlapping {@code [from, to]}, oldest first.
+     */
+    public void forEachMinute(long fromMillis, long toMillis, BucketVisitor visitor) {
+        forEach(minutes, fromMillis, toMillis, visitor);
+    }
+
+    private void forEach(Rollup rollup, long fromMillis, long toMillis, BucketVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            rollup.forEach(fromMillis, toMillis, visitor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Time of the oldest raw sample still kept, or -1 if empty.
+     */
+    public long getOldestRawMillis() {
+        lock.readLock().lock();
+        try {
+            Chunk c = raw.peekFirst();
+            return (c == null || c.size == 0) ? -1 : c.time[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long rescale(long weight, int fromScale) {
+        if (fromScale == scale) return weight;
+        if (fromScale < scale) return weight * POW10[scale - fromScale];
+        long div = (fromScale - scale < POW10.length) ? POW10[fromScale - scale] : Long.MAX_VALUE;
+        return Math.round((double) weight / div);
+    }
+}
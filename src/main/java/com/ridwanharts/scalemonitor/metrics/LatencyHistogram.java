@@ -0,0 +1,72 @@
+package com.ridwanharts.scalemonitor.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two nanosecond buckets: bucket {@code i}
+ * counts values below {@code 2^i} ns. Percentiles are reported as the bucket's upper
+ * bound, i.e. at most 2x pessimistic, which is plenty to tell microseconds from
+ * milliseconds from a stall.
+ *
+ * @author ridwan
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 40; // up to ~9 minutes
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) buckets[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        int i = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+        buckets[i].increment();
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(max.get());
+    }
+
+    public long getMeanMicros() {
+        long n = count.sum();
+        return (n == 0) ? 0 : TimeUnit.NANOSECONDS.toMicros(sum.sum() / n);
+    }
+
+    /**
+     * @param p percentile in (0, 100]
+     * @return upper bound of the bucket holding the p-th percentile, 0 when empty
+     */
+    public long getPercentileMicros(double p) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(total * p / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return TimeUnit.NANOSECONDS.toMicros(Math.min(1L << i, max.get()));
+            }
+        }
+        return getMaxMicros();
+    }
+}
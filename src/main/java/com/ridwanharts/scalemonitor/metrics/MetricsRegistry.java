@@ -0,0 +1,95 @@
+package com.ridwanharts.scalemonitor.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Publishes {@link PortMetrics} over JMX and hands out periodic snapshots.
+ * Registering a second metrics object under the same port name replaces the first.
+ *
+ * @author ridwan
+ */
+public class MetricsRegistry implements AutoCloseable {
+
+    private static final String DOMAIN = "com.ridwanharts.scalemonitor";
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private final Map<String, PortMetrics> ports = new ConcurrentHashMap<>();
+    private ScheduledExecutorService reporter;
+
+    /**
+     * @return false if the JMX registration failed; the metrics are still part of snapshots
+     */
+    public boolean register(PortMetrics metrics) {
+        ports.put(metrics.getPortName(), metrics);
+        try {
+            ObjectName name = objectName(metrics.getPortName());
+            synchronized (server) {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(metrics, name);
+            }
+            return true;
+        } catch (JMException ex) {
+            return false;
+        }
+    }
+
+    public void unregister(PortMetrics metrics) {
+        if (!ports.remove(metrics.getPortName(), metrics)) return;
+        try {
+            server.unregisterMBean(objectName(metrics.getPortName()));
+        } catch (JMException ignored) {
+            // already gone
+        }
+    }
+
+    public List<MetricsSnapshot> snapshot() {
+        List<MetricsSnapshot> list = new ArrayList<>(ports.size());
+        for (PortMetrics m : ports.values()) {
+            list.add(m.snapshot());
+        }
+        return list;
+    }
+
+    /**
+     * Deliver {@link #snapshot()} to {@code consumer} every {@code periodMillis} on a
+     * background thread, until {@link #close()}.
+     */
+    public synchronized void startReporting(long periodMillis, Consumer<List<MetricsSnapshot>> consumer) {
+        if (reporter != null) reporter.shutdownNow();
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(() -> consumer.accept(snapshot()), periodMillis, periodMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+        for (PortMetrics m : new ArrayList<>(ports.values())) {
+            unregister(m);
+        }
+    }
+
+    private static ObjectName objectName(String portName) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Port,name=" + ObjectName.quote(portName));
+    }
+}
@@ -0,0 +1,138 @@
+package com.ridwanharts.scalemonitor.metrics;
+
+/**
+ * Point-in-time copy of a {@link PortMetrics}. Counters are summed one after the other,
+ * so under load they are consistent to within a few events of each other.
+ *
+ * @author ridwan
+ */
+public final class MetricsSnapshot {
+
+    private final String portName;
+    private final long timestampMillis = System.currentTimeMillis();
+    private final long bytesReceived;
+    private final long framesDecoded;
+    private final long checksumMismatches;
+    private final long resyncBytesDropped;
+    private final long unknownFrames;
+    private final long overloads;
+    private final long underloads;
+    private final long errors;
+    private final long reconnects;
+    private final String lastError;
+    private final int queueDepth;
+    private final long millisSinceLastData;
+    private final long latencyP50Micros;
+    private final long latencyP99Micros;
+    private final long latencyMaxMicros;
+
+    MetricsSnapshot(PortMetrics m) {
+        portName = m.getPortName();
+        bytesReceived = m.getBytesReceived();
+        framesDecoded = m.getFramesDecoded();
+        checksumMismatches = m.getChecksumMismatches();
+        resyncBytesDropped = m.getResyncBytesDropped();
+        unknownFrames = m.getUnknownFrames();
+        overloads = m.getOverloads();
+        underloads = m.getUnderloads();
+        errors = m.getErrors();
+        reconnects = m.getReconnects();
+        lastError = m.getLastError();
+        queueDepth = m.getQueueDepth();
+        millisSinceLastData = m.getMillisSinceLastData();
+        latencyP50Micros = m.getLatencyP50Micros();
+        latencyP99Micros = m.getLatencyP99Micros();
+        latencyMaxMicros = m.getLatencyMaxMicros();
+    }
+
+    public String getPortName() {
+        return portName;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getFramesDecoded() {
+        return framesDecoded;
+    }
+
+    public long getChecksumMismatches() {
+        return checksumMismatches;
+    }
+
+    public long getResyncBytesDropped() {
+        return resyncBytesDropped;
+    }
+
+    public long getUnknownFrames() {
+        return unknownFrames;
+    }
+
+    public long getOverloads() {
+        return overloads;
+    }
+
+    public long getUnderloads() {
+        return underloads;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getReconnects() {
+        return reconnects;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public long getMillisSinceLastData() {
+        return millisSinceLastData;
+    }
+
+    public long getLatencyP50Micros() {
+        return latencyP50Micros;
+    }
+
+    public long getLatencyP99Micros() {
+        return latencyP99Micros;
+    }
+
+    public long getLatencyMaxMicros() {
+        return latencyMaxMicros;
+    }
+
+    /**
+     * Multi-line summary, as shown in the stats panel.
+     */
+    public String format() {
+        return "Bytes: " + bytesReceived + "   Frames: " + framesDecoded
+                + "\nChecksum: " + checksumMismatches + "   Resync: " + resyncBytesDropped
+                + "\nUnknown: " + unknownFrames + "   OL: " + overloads + "   LO: " + underloads
+                + "\nErrors: " + errors + "   Reconnects: " + reconnects + "   Backlog: " + queueDepth
+                + "\nLatency p50/p99/max: " + latencyP50Micros + "/" + latencyP99Micros + "/" + latencyMaxMicros + " us"
+                + "\nLast data: " + (millisSinceLastData < 0 ? "never" : millisSinceLastData + " ms ago");
+    }
+
+    @Override
+    public String toString() {
+        return portName + " bytes=" + bytesReceived + " frames=" + framesDecoded
+                + " checksum=" + checksumMismatches + " resync=" + resyncBytesDropped
+                + " unknown=" + unknownFrames + " ol=" + overloads + " lo=" + underloads
+                + " errors=" + errors + " reconnects=" + reconnects + " queue=" + queueDepth
+                + " latencyUs=" + latencyP50Micros + "/" + latencyP99Micros + "/" + latencyMaxMicros
+                + " idleMs=" + millisSinceLastData
+                + (lastError != null ? " lastError=" + lastError : "");
+    }
+}
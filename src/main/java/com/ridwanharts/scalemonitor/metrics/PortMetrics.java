@@ -0,0 +1,181 @@
+package com.ridwanharts.scalemonitor.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters of one port. Updated from the transport and decoder threads with
+ * {@link LongAdder}s only, so the hot path never takes a lock; readers (JMX, the stats
+ * panel, {@link #snapshot()}) just sum them up.
+ *
+ * @author ridwan
+ */
+public class PortMetrics implements PortMetricsMXBean {
+
+    private final String portName;
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder framesDecoded = new LongAdder();
+    private final LongAdder checksumMismatches = new LongAdder();
+    private final LongAdder resyncBytesDropped = new LongAdder();
+    private final LongAdder unknownFrames = new LongAdder();
+    private final LongAdder overloads = new LongAdder();
+    private final LongAdder underloads = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private volatile String lastError;
+    private volatile long lastDataNanos;
+    private volatile IntSupplier queueDepth;
+
+    public PortMetrics(String portName) {
+        this.portName = portName;
+    }
+
+    public void addBytes(int count) {
+        bytesReceived.add(count);
+        lastDataNanos = System.nanoTime();
+    }
+
+    public void frameDecoded() {
+        framesDecoded.increment();
+    }
+
+    public void checksumMismatch() {
+        checksumMismatches.increment();
+    }
+
+    public void addResyncBytes(int count) {
+        resyncBytesDropped.add(count);
+    }
+
+    public void unknownFrame() {
+        unknownFrames.increment();
+    }
+
+    public void overload() {
+        overloads.increment();
+    }
+
+    public void underload() {
+        underloads.increment();
+    }
+
+    public void error(String message) {
+        errors.increment();
+        lastError = message;
+    }
+
+    public void reconnected() {
+        reconnects.increment();
+    }
+
+    /**
+     * Time from bytes arriving on the transport to their frames having been dispatched.
+     */
+    public void recordLatency(long nanos) {
+        latency.record(nanos);
+    }
+
+    /**
+     * Where {@link #getQueueDepth()} comes from, e.g. the handoff ring backlog; null for none.
+     */
+    public void setQueueDepthSource(IntSupplier source) {
+        this.queueDepth = source;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String getPortName() {
+        return portName;
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public long getFramesDecoded() {
+        return framesDecoded.sum();
+    }
+
+    @Override
+    public long getChecksumMismatches() {
+        return checksumMismatches.sum();
+    }
+
+    @Override
+    public long getResyncBytesDropped() {
+        return resyncBytesDropped.sum();
+    }
+
+    @Override
+    public long getUnknownFrames() {
+        return unknownFrames.sum();
+    }
+
+    @Override
+    public long getOverloads() {
+        return overloads.sum();
+    }
+
+    @Override
+    public long getUnderloads() {
+        return underloads.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getReconnects() {
+        return reconnects.sum();
+    }
+
+    @Override
+    public String getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        IntSupplier source = queueDepth;
+        return (source == null) ? 0 : source.getAsInt();
+    }
+
+    @Override
+    public long getMillisSinceLastData() {
+        long last = lastDataNanos;
+        return (last == 0) ? -1 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - last);
+    }
+
+    @Override
+    public long getLatencyCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getLatencyP50Micros() {
+        return latency.getPercentileMicros(50);
+    }
+
+    @Override
+    public long getLatencyP99Micros() {
+        return latency.getPercentileMicros(99);
+    }
+
+    @Override
+    public long getLatencyMaxMicros() {
+        return latency.getMaxMicros();
+    }
+
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(this);
+    }
+}
@@ -0,0 +1,47 @@
+package com.ridwanharts.scalemonitor.metrics;
+
+/**
+ * JMX view of {@link PortMetrics}, registered by {@link MetricsRegistry} as
+ * {@code com.ridwanharts.scalemonitor:type=Port,name="<port>"}.
+ *
+ * @author ridwan
+ */
+public interface PortMetricsMXBean {
+
+    String getPortName();
+
+    long getBytesReceived();
+
+    long getFramesDecoded();
+
+    long getChecksumMismatches();
+
+    long getResyncBytesDropped();
+
+    long getUnknownFrames();
+
+    long getOverloads();
+
+    long getUnderloads();
+
+    long getErrors();
+
+    long getReconnects();
+
+    String getLastError();
+
+    int getQueueDepth();
+
+    /**
+     * Milliseconds since the last byte arrived, -1 if nothing was received yet.
+     */
+    long getMillisSinceLastData();
+
+    long getLatencyCount();
+
+    long getLatencyP50Micros();
+
+    long getLatencyP99Micros();
+
+    long getLatencyMaxMicros();
+}
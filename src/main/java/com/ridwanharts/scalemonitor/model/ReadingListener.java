@@ -0,0 +1,15 @@
+package com.ridwanharts.scalemonitor.model;
+
+/**
+ * Receives typed readings straight from a decoder.
+ * <p>
+ * The reading passed in is usually a reused instance owned by the decoder; it is only
+ * valid for the duration of the call. Use {@link WeightReading#copy()} to keep it.
+ *
+ * @author ridwan
+ */
+@FunctionalInterface
+public interface ReadingListener {
+
+    void onReading(WeightReading reading);
+}
@@ -0,0 +1,191 @@
+package com.ridwanharts.scalemonitor.model;
+
+/**
+ * A single decoded weight reading.
+ * <p>
+ * The weight is kept as fixed point: {@code weight / 10^scale}, e.g. 4.139 kg is
+ * weight=4139, scale=3. Instances are mutable so a decoder can fill the same object
+ * for every frame; listeners that keep a reading beyond the callback must
+ * {@link #copy()} it.
+ *
+ * @author ridwan
+ */
+public final class WeightReading {
+
+    public enum Mode {
+        GROSS,
+        NET,
+        UNKNOWN
+    }
+
+    public enum Status {
+        OK,
+        OVERLOAD,   // "OL" frame
+        UNDERLOAD   // "LO" frame
+    }
+
+    // pairs the nanoTime clock of the stamps with wall-clock time, once for the whole JVM
+    private static final long BASE_MILLIS = System.currentTimeMillis();
+    private static final long BASE_NANOS = System.nanoTime();
+
+    private static final long[] POW10 = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L,
+        100_000_000L, 1_000_000_000L
+    };
+
+    private String scaleId;
+    private Mode mode = Mode.UNKNOWN;
+    private Status status = Status.OK;
+    private long weight;
+    private int scale;
+    private String unit = "";
+    private long timestampNanos;
+
+    /**
+     * Fill this reading with a normal weighing result.
+     */
+    public WeightReading set(Mode mode, long weight, int scale, String unit, long timestampNanos) {
+        this.mode = mode;
+        this.status = Status.OK;
+        this.weight = weight;
+        this.scale = scale;
+        this.unit = unit;
+        this.timestampNanos = timestampNanos;
+        return this;
+    }
+
+    /**
+     * Fill this reading with an overload / underload indication (no weight).
+     */
+    public WeightReading setStatus(Status status, long timestampNanos) {
+        this.mode = Mode.UNKNOWN;
+        this.status = status;
+        this.weight = 0;
+        this.scale = 0;
+        this.unit = "";
+        this.timestampNanos = timestampNanos;
+        return this;
+    }
+
+    public WeightReading copyFrom(WeightReading other) {
+        this.scaleId = other.scaleId;
+        this.mode = other.mode;
+        this.status = other.status;
+        this.weight = other.weight;
+        this.scale = other.scale;
+        this.unit = other.unit;
+        this.timestampNanos = other.timestampNanos;
+        return this;
+    }
+
+    public WeightReading copy() {
+        return new WeightReading().copyFrom(this);
+    }
+
+    /**
+     * Id of the scale this reading came from, or null when only one scale is connected.
+     */
+    public String getScaleId() {
+        return scaleId;
+    }
+
+    public WeightReading setScaleId(String scaleId) {
+        this.scaleId = scaleId;
+        return this;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Fixed-point weight, see {@link #getScale()}.
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Number of decimal places in {@link #getWeight()}.
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * {@link System#nanoTime()} at the moment the frame was decoded.
+     */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    /**
+     * {@link #getTimestampNanos()} as wall-clock milliseconds since the epoch.
+     */
+    public long getTimestampMillis() {
+        return toEpochMillis(timestampNanos);
+    }
+
+    /**
+     * Convert a {@link System#nanoTime()} stamp of this JVM to wall-clock milliseconds
+     * since the epoch. Every component uses this one mapping, so their times agree.
+     */
+    public static long toEpochMillis(long nanoTime) {
+        return BASE_MILLIS + Math.floorDiv(nanoTime - BASE_NANOS, 1_000_000L);
+    }
+
+    public double toDouble() {
+        return (double) weight / POW10[scale];
+    }
+
+    /**
+     * Weight with {@code scale} decimals, e.g. "4.139" or "-0.50".
+     */
+    public String formatWeight() {
+        StringBuilder out = new StringBuilder(12);
+        appendWeight(out);
+        return out.toString();
+    }
+
+    public void appendWeight(StringBuilder out) {
+        appendDecimal(out, weight, scale);
+    }
+
+    /**
+     * Append the fixed-point number {@code value / 10^scale} with {@code scale} decimals.
+     */
+    public static void appendDecimal(StringBuilder out, long value, int scale) {
+        long abs = Math.abs(value);
+        if (value < 0) out.append('-');
+        if (scale == 0) {
+            out.append(abs);
+            return;
+        }
+        long div = POW10[scale];
+        out.append(abs / div).append('.');
+        long frac = abs % div;
+        for (long p = div / 10; p > frac && p > 1; p /= 10) out.append('0');
+        out.append(frac);
+    }
+
+    /**
+     * Same compact form the frame parser emits as text, e.g. "G:4.139 kg", "OL" or "LO".
+     */
+    @Override
+    public String toString() {
+        if (status == Status.OVERLOAD) return "OL";
+        if (status == Status.UNDERLOAD) return "LO";
+        StringBuilder out = new StringBuilder(16);
+        out.append(mode == Mode.GROSS ? 'G' : mode == Mode.NET ? 'N' : '?').append(':');
+        appendWeight(out);
+        return out.append(' ').append(unit).toString();
+    }
+}
@@ -0,0 +1,79 @@
+package com.ridwanharts.scalemonitor.reprocess;
+
+import com.ridwanharts.scalemonitor.util.BulkFrameDecoder;
+import com.ridwanharts.scalemonitor.util.FrameColumns;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Frames decoded from one byte range of a dump, in file order. A range owns the frames
+ * that start in {@code [start, limit)}; {@link #end} is where the decoder's cursor stopped,
+ * at or up to 14 bytes past {@code limit} when the last frame straddles it.
+ *
+ * @author ridwan
+ */
+final class ChunkResult {
+
+    /**
+     * Slots {@code from .. to-1} of {@code frames}; frame offsets are relative to {@code base}.
+     */
+    static final class Piece {
+
+        final long base;
+        final FrameColumns frames;
+        final int from;
+        final int to;
+
+        Piece(long base, FrameColumns frames, int from, int to) {
+            this.base = base;
+            this.frames = frames;
+            this.from = from;
+            this.to = to;
+        }
+
+        long position(int slot) {
+            return base + frames.getOffsets()[slot];
+        }
+    }
+
+    final long start;
+    final long limit;
+    long end;
+    final List<Piece> pieces = new ArrayList<>();
+    final long[] classCounts = new long[BulkFrameDecoder.FRAME_INVALID_WEIGHT + 1];
+    long frameCount;
+    int chunks;
+    int seamFixups;
+
+    ChunkResult(long start, long limit) {
+        this.start = start;
+        this.limit = limit;
+    }
+
+    void add(Piece piece) {
+        if (piece.to <= piece.from) return;
+        pieces.add(piece);
+        byte[] classes = piece.frames.getClasses();
+        for (int i = piece.from; i < piece.to; i++) {
+            classCounts[classes[i]]++;
+        }
+        frameCount += piece.to - piece.from;
+    }
+
+    /**
+     * Append {@code right}, which must start where this result ended.
+     */
+    ChunkResult concat(ChunkResult right) {
+        ChunkResult merged = new ChunkResult(start, right.limit);
+        merged.pieces.addAll(pieces);
+        merged.pieces.addAll(right.pieces);
+        for (int i = 0; i < classCounts.length; i++) {
+            merged.classCounts[i] = classCounts[i] + right.classCounts[i];
+        }
+        merged.frameCount = frameCount + right.frameCount;
+        merged.end = right.end;
+        merged.chunks = chunks + right.chunks;
+        merged.seamFixups = seamFixups + right.seamFixups;
+        return merged;
+    }
+}
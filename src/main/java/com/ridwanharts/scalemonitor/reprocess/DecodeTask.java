@@ -0,0 +1,147 @@
+package com.ridwanharts.scalemonitor.reprocess;
+
+import com.ridwanharts.scalemonitor.util.BulkFrameDecoder;
+import com.ridwanharts.scalemonitor.util.FrameColumns;
+import com.ridwanharts.scalemonitor.util.ScaleFrameParser;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Decodes the frames starting in {@code [from, to)} of a dump. Ranges larger than a chunk
+ * are split at a likely frame boundary, both halves decoded in parallel and joined with
+ * {@link #align} so the result equals one sequential pass over the range.
+ *
+ * @author ridwan
+ */
+final class DecodeTask extends RecursiveTask<ChunkResult> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int FRAME_LENGTH = ScaleFrameParser.FRAME_LENGTH;
+    private static final int SNAP_WINDOW = 4096;
+    private static final int FIXUP_BLOCK = 64 * 1024;
+
+    private final transient FileChannel channel;
+    private final long size;
+    private final long from;
+    private final long to;
+    private final int chunkBytes;
+
+    DecodeTask(FileChannel channel, long size, long from, long to, int chunkBytes) {
+        this.channel = channel;
+        this.size = size;
+        this.from = from;
+        this.to = to;
+        this.chunkBytes = chunkBytes;
+    }
+
+    @Override
+    protected ChunkResult compute() {
+        try {
+            if (to - from <= chunkBytes) {
+                return decode(from, to);
+            }
+            long mid = snap(channel, size, from + (to - from) / 2, from, to);
+            DecodeTask right = new DecodeTask(channel, size, mid, to, chunkBytes);
+            right.fork();
+            ChunkResult left = new DecodeTask(channel, size, from, mid, chunkBytes).compute();
+            return left.concat(align(channel, size, left.end, right.join()));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private ChunkResult decode(long start, long limit) throws IOException {
+        // frames starting before limit may run 14 bytes past it
+        byte[] buf = read(channel, start, Math.min(limit + FRAME_LENGTH - 1, size) - start);
+        FrameColumns frames = new FrameColumns(buf.length / FRAME_LENGTH + 1);
+        int used = BulkFrameDecoder.decode(buf, 0, buf.length, frames);
+        ChunkResult result = new ChunkResult(start, limit);
+        result.add(new ChunkResult.Piece(start, frames, 0, frames.size()));
+        result.end = start + used;
+        result.chunks = 1;
+        return result;
+    }
+
+    /**
+     * Re-decode the head of {@code right} from {@code cursor}, where the sequential pass
+     * over the previous range actually stopped, until both passes meet on a common frame.
+     * Nothing to do when the previous range ended exactly on {@code right.start}.
+     */
+    static ChunkResult align(FileChannel channel, long size, long cursor, ChunkResult right) throws IOException {
+        if (cursor == right.start) return right;
+
+        ChunkResult fixed = new ChunkResult(cursor, right.limit);
+        fixed.chunks = right.chunks;
+        fixed.seamFixups = right.seamFixups + 1;
+        int piece = 0;
+        int slot = right.pieces.isEmpty() ? 0 : right.pieces.get(0).from;
+        long c = cursor;
+        while (c < right.limit) {
+            long blockEnd = Math.min(Math.min(c + FIXUP_BLOCK, right.limit) + FRAME_LENGTH - 1, size);
+            byte[] buf = read(channel, c, blockEnd - c);
+            FrameColumns frames = new FrameColumns(buf.length / FRAME_LENGTH + 1);
+            int used = BulkFrameDecoder.decode(buf, 0, buf.length, frames);
+            for (int i = 0; i < frames.size(); i++) {
+                long pos = c + frames.getOffsets()[i];
+                // skip frames of the right pass that the sequential pass never saw
+                while (piece < right.pieces.size()) {
+                    ChunkResult.Piece p = right.pieces.get(piece);
+                    if (slot >= p.to) {
+                        if (++piece < right.pieces.size()) slot = right.pieces.get(piece).from;
+                        continue;
+                    }
+                    if (p.position(slot) >= pos) break;
+                    slot++;
+                }
+                if (piece < right.pieces.size() && right.pieces.get(piece).position(slot) == pos) {
+                    // both passes are at the same cursor, from here on they are identical
+                    fixed.add(new ChunkResult.Piece(c, frames, 0, i));
+                    ChunkResult.Piece p = right.pieces.get(piece);
+                    fixed.add(new ChunkResult.Piece(p.base, p.frames, slot, p.to));
+                    for (int k = piece + 1; k < right.pieces.size(); k++) fixed.add(right.pieces.get(k));
+                    fixed.end = right.end;
+                    return fixed;
+                }
+            }
+            fixed.add(new ChunkResult.Piece(c, frames, 0, frames.size()));
+            if (used == 0) break;
+            c += used;
+        }
+        fixed.end = c;
+        return fixed;
+    }
+
+    /**
+     * A position near {@code target} where one frame ends and the next begins (CR LF right
+     * before it and at its offsets 13/14), or {@code target} if none is close by.
+     */
+    static long snap(FileChannel channel, long size, long target, long lo, long hi) throws IOException {
+        long base = target - 2;
+        if (base < lo) return target;
+        byte[] buf = read(channel, base, Math.min(SNAP_WINDOW, size - base));
+        int q = BulkFrameDecoder.nextFrameStart(buf, 15, buf.length);
+        while (q >= 0) {
+            if (buf[q - 2] == 0x0D && buf[q - 1] == 0x0A) {
+                long pos = base + q;
+                return (pos < hi) ? pos : target;
+            }
+            q = BulkFrameDecoder.nextFrameStart(buf, q + 14, buf.length);
+        }
+        return target;
+    }
+
+    static byte[] read(FileChannel channel, long position, long length) throws IOException {
+        byte[] buf = new byte[(int) length];
+        ByteBuffer bb = ByteBuffer.wrap(buf);
+        while (bb.hasRemaining()) {
+            if (channel.read(bb, position + bb.position()) < 0) {
+                throw new IOException("unexpected end of file at " + (position + bb.position()));
+            }
+        }
+        return buf;
+    }
+}
@@ -0,0 +1,107 @@
+package com.ridwanharts.scalemonitor.reprocess;
+
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import com.ridwanharts.scalemonitor.util.FrameColumns;
+import com.ridwanharts.scalemonitor.util.ScaleFrameParser;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command line front end of {@link Reprocessor}, e.g.
+ * {@code java -p libs -m scalemonitor/com.ridwanharts.scalemonitor.reprocess.ReprocessMain dump.bin --out frames.csv}.
+ * Prints the totals; with {@code --out} also writes every frame as
+ * {@code offset,kind,mode,weight,unit}.
+ *
+ * @author ridwan
+ */
+public final class ReprocessMain {
+
+    private ReprocessMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path input = null;
+        Path output = null;
+        int chunkMB = 4;
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--out": output = Paths.get(args[++i]); break;
+                    case "--chunkMB": chunkMB = Integer.parseInt(args[++i]); break;
+                    case "--threads": threads = Integer.parseInt(args[++i]); break;
+                    default:
+                        if (args[i].startsWith("--") || input != null) {
+                            throw new IllegalArgumentException("Unknown option " + args[i]);
+                        }
+                        input = Paths.get(args[i]);
+                }
+            }
+            if (input == null) throw new IllegalArgumentException("No input file");
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println("Usage: ReprocessMain dump.bin [--out frames.csv] [--chunkMB 4] [--threads n]");
+            System.exit(2);
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Reprocessor reprocessor = new Reprocessor(pool, chunkMB << 20);
+            ReprocessStats stats;
+            if (output == null) {
+                stats = reprocessor.run(input, (base, frames, from, to) -> { });
+            } else {
+                try (Writer out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                    out.write("offset,kind,mode,weight,unit\n");
+                    CsvWriter csv = new CsvWriter(out);
+                    stats = reprocessor.run(input, csv::write);
+                }
+            }
+            System.out.println(input + ": " + stats);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Formats frames into one reused buffer per batch.
+     */
+    private static final class CsvWriter {
+
+        private final Writer out;
+        private final StringBuilder line = new StringBuilder(64 * 1024);
+
+        CsvWriter(Writer out) {
+            this.out = out;
+        }
+
+        void write(long base, FrameColumns frames, int from, int to) throws IOException {
+            int[] offsets = frames.getOffsets();
+            byte[] classes = frames.getClasses();
+            for (int i = from; i < to; i++) {
+                line.append(base + offsets[i]).append(',').append(ReprocessStats.className(classes[i])).append(',');
+                if (classes[i] == ScaleFrameParser.FRAME_WEIGHT) {
+                    line.append((char) frames.getModes()[i]).append(',');
+                    WeightReading.appendDecimal(line, frames.getWeights()[i], frames.getScales()[i]);
+                    line.append(',').append(frames.getUnits()[i]);
+                } else {
+                    line.append(",,");
+                }
+                line.append('\n');
+                if (line.length() >= 60 * 1024) flush();
+            }
+            flush();
+        }
+
+        private void flush() throws IOException {
+            out.append(line);
+            line.setLength(0);
+        }
+    }
+}
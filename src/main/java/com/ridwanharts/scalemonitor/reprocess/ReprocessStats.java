@@ -0,0 +1,105 @@
+package com.ridwanharts.scalemonitor.reprocess;
+
+import com.ridwanharts.scalemonitor.util.BulkFrameDecoder;
+import com.ridwanharts.scalemonitor.util.ScaleFrameParser;
+import java.util.Locale;
+
+/**
+ * Totals of one {@link Reprocessor#run}.
+ *
+ * @author ridwan
+ */
+public final class ReprocessStats {
+
+    private static final String[] CLASS_NAMES = {
+        "WEIGHT", "OVERLOAD", "UNDERLOAD", "BAD_CHECKSUM", "UNKNOWN", "INVALID_WEIGHT"
+    };
+
+    private final long bytes;
+    private final long[] classCounts;
+    private final long frames;
+    private final long resyncBytes;
+    private final long trailingBytes;
+    private final int chunks;
+    private final int seamFixups;
+    private final long elapsedMillis;
+
+    ReprocessStats(long bytes, long[] classCounts, long frames, long end, int chunks, int seamFixups,
+                   long elapsedMillis) {
+        this.bytes = bytes;
+        this.classCounts = classCounts.clone();
+        this.frames = frames;
+        // every byte before the final cursor belongs to a frame or was skipped
+        this.resyncBytes = end - frames * ScaleFrameParser.FRAME_LENGTH;
+        this.trailingBytes = bytes - end;
+        this.chunks = chunks;
+        this.seamFixups = seamFixups;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Name of a {@code FRAME_*} class as used in reports and CSV output.
+     */
+    public static String className(int frameClass) {
+        return CLASS_NAMES[frameClass];
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Frames of one class, see {@link ScaleFrameParser} and {@link BulkFrameDecoder}.
+     */
+    public long getCount(int frameClass) {
+        return classCounts[frameClass];
+    }
+
+    public long getResyncBytes() {
+        return resyncBytes;
+    }
+
+    /**
+     * Bytes at the end of the file too short to form a frame.
+     */
+    public long getTrailingBytes() {
+        return trailingBytes;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Chunk edges where a frame straddled the split and the next chunk had to be re-aligned.
+     */
+    public int getSeamFixups() {
+        return seamFixups;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(160);
+        sb.append(bytes).append(" bytes, ").append(frames).append(" frames (");
+        for (int i = 0; i < CLASS_NAMES.length; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(CLASS_NAMES[i].toLowerCase(Locale.ROOT)).append('=').append(classCounts[i]);
+        }
+        sb.append("), resync=").append(resyncBytes)
+                .append(" trailing=").append(trailingBytes)
+                .append(", ").append(chunks).append(" chunks, ").append(seamFixups).append(" seam fixups, ")
+                .append(elapsedMillis).append(" ms");
+        if (elapsedMillis > 0) {
+            sb.append(" (").append(bytes / 1000 / elapsedMillis).append(" MB/s)");
+        }
+        return sb.toString();
+    }
+}
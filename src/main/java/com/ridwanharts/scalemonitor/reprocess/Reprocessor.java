@@ -0,0 +1,88 @@
+package com.ridwanharts.scalemonitor.reprocess;
+
+import com.ridwanharts.scalemonitor.util.BulkFrameDecoder;
+import com.ridwanharts.scalemonitor.util.FrameColumns;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Re-decodes raw scale dumps (the bytes exactly as the scale sent them) on all cores,
+ * with the same result as feeding the whole file to one {@link com.ridwanharts.scalemonitor.util.ScaleFrameParser}.
+ * <p>
+ * The file is processed in windows of a few chunks per worker so memory stays bounded
+ * for any file size. Each window is split recursively on a {@link ForkJoinPool}, at
+ * positions where a frame ends and the next starts (CR LF before it and at its offsets
+ * 13/14), and the chunks are decoded with {@link BulkFrameDecoder}. When a frame
+ * straddles a split after all, the right-hand chunk is re-decoded from where the
+ * left-hand one really stopped until both agree. Frames are handed out in file order.
+ *
+ * @author ridwan
+ */
+public class Reprocessor {
+
+    /**
+     * Receives decoded frames in file order, on the calling thread of {@link #run}.
+     */
+    @FunctionalInterface
+    public interface FrameHandler {
+
+        /**
+         * Slots {@code from .. to-1} of {@code frames}; a frame's file position is
+         * {@code base + frames.getOffsets()[slot]}.
+         */
+        void onFrames(long base, FrameColumns frames, int from, int to) throws IOException;
+    }
+
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final ForkJoinPool pool;
+    private final int chunkBytes;
+
+    /**
+     * @param chunkBytes bytes decoded per task, at least 4096
+     */
+    public Reprocessor(ForkJoinPool pool, int chunkBytes) {
+        if (chunkBytes < 4096) throw new IllegalArgumentException("chunkBytes must be at least 4096");
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+    }
+
+    public ReprocessStats run(Path file, FrameHandler handler) throws IOException {
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long window = (long) chunkBytes * CHUNKS_PER_WORKER * pool.getParallelism();
+            long[] classCounts = new long[BulkFrameDecoder.FRAME_INVALID_WEIGHT + 1];
+            long frames = 0;
+            int chunks = 0;
+            int fixups = 0;
+            long cursor = 0;
+            long from = 0;
+            while (from < size) {
+                long to = (size - from <= window) ? size : DecodeTask.snap(channel, size, from + window, from, size);
+                ChunkResult result;
+                try {
+                    result = pool.invoke(new DecodeTask(channel, size, from, to, chunkBytes));
+                } catch (UncheckedIOException ex) {
+                    throw ex.getCause();
+                }
+                result = DecodeTask.align(channel, size, cursor, result);
+                for (ChunkResult.Piece p : result.pieces) {
+                    handler.onFrames(p.base, p.frames, p.from, p.to);
+                }
+                for (int i = 0; i < classCounts.length; i++) classCounts[i] += result.classCounts[i];
+                frames += result.frameCount;
+                chunks += result.chunks;
+                fixups += result.seamFixups;
+                cursor = result.end;
+                from = to;
+            }
+            return new ReprocessStats(size, classCounts, frames, cursor, chunks, fixups,
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.ridwanharts.scalemonitor.server;
+
+import com.ridwanharts.scalemonitor.model.ReadingListener;
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import com.ridwanharts.scalemonitor.util.Json;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Small HTTP server publishing live readings to MES and other pollers.
+ * <ul>
+ *   <li>{@code GET /readings} - latest reading of every scale, as one JSON object</li>
+ *   <li>{@code GET /readings/<scaleId>} - latest reading of one scale</li>
+ *   <li>{@code GET /events[?scale=<scaleId>]} - Server-Sent Events stream of readings</li>
+ * </ul>
+ * The acquisition thread only copies the reading into its slot and, when there are
+ * subscribers, serializes it once and offers the bytes to every client queue. JSON for
+ * polling is built lazily and cached until the next reading, so any number of pollers
+ * share one serialization. Client queues are bounded; a slow subscriber loses its oldest
+ * events instead of holding up acquisition.
+ *
+ * @author ridwan
+ */
+public class ReadingServer implements ReadingListener, AutoCloseable {
+
+    private static final long KEEPALIVE_SECONDS = 15;
+    private static final byte[] KEEPALIVE = ": keepalive\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final class Slot {
+        final WeightReading latest = new WeightReading();
+        byte[] json;
+    }
+
+    private static final class Client {
+        final String scaleFilter;
+        final BlockingQueue<byte[]> queue;
+        final LongAdder dropped = new LongAdder();
+
+        Client(String scaleFilter, int capacity) {
+            this.scaleFilter = scaleFilter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void offer(byte[] event) {
+            while (!queue.offer(event)) {
+                if (queue.poll() != null) dropped.increment();
+            }
+        }
+    }
+
+    private final HttpServer http;
+    private final ExecutorService executor;
+    private final int clientQueueCapacity;
+    private final int maxClients;
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger clientCount = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong();
+    private final LongAdder droppedEvents = new LongAdder();
+    private volatile boolean running = true;
+
+    // cached /readings body and the version it was built from
+    private byte[] snapshot;
+    private long snapshotVersion = -1;
+
+    /**
+     * @param address address to bind, e.g. {@code new InetSocketAddress(8080)}
+     * @param clientQueueCapacity events buffered per SSE client before the oldest is dropped
+     * @param maxClients SSE clients accepted at once; each one holds a server thread
+     */
+    public ReadingServer(InetSocketAddress address, int clientQueueCapacity, int maxClients) throws IOException {
+        this.clientQueueCapacity = clientQueueCapacity;
+        this.maxClients = maxClients;
+        this.http = HttpServer.create(address, 0);
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "reading-server");
+            t.setDaemon(true);
+            return t;
+        });
+        http.setExecutor(executor);
+        http.createContext("/readings", this::handleReadings);
+        http.createContext("/events", this::handleEvents);
+    }
+
+    public void start() {
+        http.start();
+    }
+
+    public int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    @Override
+    public void onReading(WeightReading reading) {
+        String id = reading.getScaleId() != null ? reading.getScaleId() : "default";
+        Slot slot = slots.computeIfAbsent(id, k -> new Slot());
+        synchronized (slot) {
+            slot.latest.copyFrom(reading);
+            slot.latest.setScaleId(id);
+            slot.json = null;
+        }
+        version.incrementAndGet();
+
+        if (clients.isEmpty()) return;
+        StringBuilder sb = new StringBuilder(128).append("data: ");
+        appendJson(sb, reading, id);
+        byte[] event = sb.append("\n\n").toString().getBytes(StandardCharsets.UTF_8);
+        for (Client c : clients) {
+            if (c.scaleFilter == null || c.scaleFilter.equals(id)) {
+                c.offer(event);
+            }
+        }
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Events dropped from slow SSE clients since start, including disconnected ones.
+     */
+    public long getDroppedEvents() {
+        long total = droppedEvents.sum();
+        for (Client c : clients) total += c.dropped.sum();
+        return total;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        http.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleReadings(HttpExchange ex) throws IOException {
+        try {
+            if (!"GET".equals(ex.getRequestMethod())) {
+                send(ex, 405, "{\"error\":\"method not allowed\"}".getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            String path = ex.getRequestURI().getPath();
+            if (path.equals("/readings") || path.equals("/readings/")) {
+                send(ex, 200, snapshot());
+                return;
+            }
+            Slot slot = slots.get(path.substring("/readings/".length()));
+            if (slot == null) {
+                send(ex, 404, "{\"error\":\"unknown scale\"}".getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            send(ex, 200, json(slot));
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void handleEvents(HttpExchange ex) throws IOException {
+        try {
+            if (clientCount.incrementAndGet() > maxClients) {
+                send(ex, 503, "{\"error\":\"too many subscribers\"}".getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            Client client = new Client(queryParam(ex.getRequestURI().getRawQuery(), "scale"), clientQueueCapacity);
+            ex.getResponseHeaders().set("Content-Type", "text/event-stream");
+            ex.getResponseHeaders().set("Cache-Control", "no-cache");
+            ex.sendResponseHeaders(200, 0);
+            clients.add(client);
+            try {
+                OutputStream out = ex.getResponseBody();
+                while (running) {
+                    byte[] event = client.queue.poll(KEEPALIVE_SECONDS, TimeUnit.SECONDS);
+                    out.write(event != null ? event : KEEPALIVE);
+                    // write whatever else is already queued before flushing
+                    while ((event = client.queue.poll()) != null) out.write(event);
+                    out.flush();
+                }
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            } catch (IOException ignored) {
+                // client went away
+            } finally {
+                clients.remove(client);
+                droppedEvents.add(client.dropped.sum());
+            }
+        } finally {
+            clientCount.decrementAndGet();
+            ex.close();
+        }
+    }
+
+    private byte[] snapshot() {
+        synchronized (this) {
+            long v = version.get();
+            if (snapshot == null || snapshotVersion != v) {
+                StringBuilder sb = new StringBuilder(64 + 128 * slots.size()).append('{');
+                boolean first = true;
+                for (Map.Entry<String, Slot> e : new TreeMap<>(slots).entrySet()) {
+                    if (!first) sb.append(',');
+                    first = false;
+                    Json.appendString(sb, e.getKey());
+                    sb.append(':');
+                    Slot slot = e.getValue();
+                    synchronized (slot) {
+                        appendJson(sb, slot.latest, slot.latest.getScaleId());
+                    }
+                }
+                snapshot = sb.append('}').toString().getBytes(StandardCharsets.UTF_8);
+                snapshotVersion = v;
+            }
+            return snapshot;
+        }
+    }
+
+    private byte[] json(Slot slot) {
+        synchronized (slot) {
+            if (slot.json == null) {
+                StringBuilder sb = new StringBuilder(128);
+                appendJson(sb, slot.latest, slot.latest.getScaleId());
+                slot.json = sb.toString().getBytes(StandardCharsets.UTF_8);
+            }
+            return slot.json;
+        }
+    }
+
+    private void appendJson(StringBuilder sb, WeightReading r, String id) {
+        sb.append("{\"scale\":");
+        Json.appendString(sb, id);
+        sb.append(",\"status\":\"").append(r.getStatus()).append('"');
+        if (r.getStatus() == WeightReading.Status.OK) {
+            sb.append(",\"mode\":\"").append(r.getMode()).append("\",\"weight\":");
+            r.appendWeight(sb);
+            sb.append(",\"unit\":");
+            Json.appendString(sb, r.getUnit());
+        }
+        sb.append(",\"timestamp\":").append(r.getTimestampMillis()).append('}');
+    }
+
+    private static String queryParam(String query, String name) {
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static void send(HttpExchange ex, int status, byte[] body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
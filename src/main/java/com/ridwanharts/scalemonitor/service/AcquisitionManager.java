@@ -0,0 +1,205 @@
+package com.ridwanharts.scalemonitor.service;
+
+import com.ridwanharts.scalemonitor.capture.CaptureWriter;
+import com.ridwanharts.scalemonitor.metrics.MetricsRegistry;
+import com.ridwanharts.scalemonitor.metrics.PortMetrics;
+import com.ridwanharts.scalemonitor.model.ReadingListener;
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import com.ridwanharts.scalemonitor.transport.ByteTransport;
+import com.ridwanharts.scalemonitor.transport.SerialPortTransport;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs many scales at once, e.g. all the stations of a weighbridge line.
+ * <p>
+ * Every scale gets its own {@link SerialService} (its own transport thread and parser
+ * state) in FRAME_PARSER mode. Readings are tagged with the scale id and offered to one
+ * shared bounded queue. Offering never blocks: when consumers fall behind, new readings
+ * are dropped and counted, so a slow or noisy scale cannot stall the others.
+ *
+ * @author ridwan
+ */
+public class AcquisitionManager implements AutoCloseable {
+
+    private final BlockingQueue<WeightReading> queue;
+    private final Map<String, SerialService> scales = new ConcurrentHashMap<>();
+    private final BiConsumer<String, String> onError;
+    private final LongAdder dropped = new LongAdder();
+    private volatile ReadingListener tap;
+    private volatile CaptureWriter captureWriter;
+    private volatile MetricsRegistry metricsRegistry;
+    private volatile long reconnectInitialMillis;
+    private volatile long reconnectMaxMillis;
+    private volatile String commandTerminator = "";
+
+    /**
+     * @param queueCapacity size of the shared reading queue
+     * @param onError receives (scaleId, message) from any scale, on that scale's thread
+     */
+    public AcquisitionManager(int queueCapacity, BiConsumer<String, String> onError) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.onError = onError;
+    }
+
+    /**
+     * Also hand every tagged reading to {@code listener} (e.g. an HTTP publisher or a
+     * history store), on the scale's own thread, before it is queued. Pass null to remove.
+     */
+    public void setReadingListener(ReadingListener listener) {
+        this.tap = listener;
+    }
+
+    /**
+     * Record the raw bytes of scales added from now on; see {@link SerialService#setCaptureWriter}.
+     */
+    public void setCaptureWriter(CaptureWriter writer) {
+        this.captureWriter = writer;
+    }
+
+    /**
+     * Reopen dropped links of scales added from now on; see {@link SerialService#setAutoReconnect}.
+     */
+    public void setAutoReconnect(long initialDelayMillis, long maxDelayMillis) {
+        this.reconnectInitialMillis = initialDelayMillis;
+        this.reconnectMaxMillis = maxDelayMillis;
+    }
+
+    /**
+     * Terminator of commands sent to scales added from now on; see {@link SerialService#setCommandTerminator}.
+     */
+    public void setCommandTerminator(String terminator) {
+        this.commandTerminator = terminator;
+    }
+
+    public boolean addScale(String scaleId, String portName, int baudRate) {
+        return addScale(scaleId, new SerialPortTransport(portName, baudRate));
+    }
+
+    /**
+     * Open {@code transport} and start acquiring readings tagged with {@code scaleId}.
+     * @return false if the id is already in use or the transport could not be opened
+     */
+    public boolean addScale(String scaleId, ByteTransport transport) {
+        SerialService service = new SerialService();
+        if (scales.putIfAbsent(scaleId, service) != null) {
+            onError.accept(scaleId, "scale id already in use");
+            return false;
+        }
+        service.setParseMode(SerialService.ParseMode.FRAME_PARSER);
+        service.setCaptureWriter(captureWriter);
+        PortMetrics metrics = new PortMetrics(scaleId);
+        service.setMetrics(metrics);
+        service.setAutoReconnect(reconnectInitialMillis, reconnectMaxMillis);
+        service.setCommandTerminator(commandTerminator);
+        service.setReadingListener(reading -> {
+            WeightReading r = reading.copy().setScaleId(scaleId);
+            ReadingListener t = tap;
+            if (t != null) {
+                t.onReading(r);
+            }
+            if (!queue.offer(r)) {
+                dropped.increment();
+            }
+        });
+        boolean opened = service.open(transport,
+                text -> { /* text output is not used, readings go to the listener */ },
+                message -> onError.accept(scaleId, message));
+        if (!opened) {
+            scales.remove(scaleId, service);
+        } else {
+            MetricsRegistry registry = metricsRegistry;
+            if (registry != null) registry.register(metrics);
+        }
+        return opened;
+    }
+
+    public void removeScale(String scaleId) {
+        SerialService service = scales.remove(scaleId);
+        if (service != null) {
+            service.close();
+            MetricsRegistry registry = metricsRegistry;
+            if (registry != null && service.getMetrics() != null) registry.unregister(service.getMetrics());
+        }
+    }
+
+    /**
+     * Publish the metrics of scales added from now on (named by scale id) in {@code registry}.
+     */
+    public void setMetricsRegistry(MetricsRegistry registry) {
+        this.metricsRegistry = registry;
+    }
+
+    /**
+     * Counters of one scale, or null if the id is unknown.
+     */
+    public PortMetrics getMetrics(String scaleId) {
+        SerialService service = scales.get(scaleId);
+        return (service == null) ? null : service.getMetrics();
+    }
+
+    /**
+     * Send a command to one scale and complete with its reply, see {@link SerialService#request}.
+     * The reply is also queued as a reading as usual. Usable as a {@link PollScheduler.CommandTarget}.
+     */
+    public CompletableFuture<CommandResponse> request(String scaleId, String command, long timeoutMillis) {
+        SerialService service = scales.get(scaleId);
+        if (service == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("unknown scale " + scaleId));
+        }
+        return service.request(command, timeoutMillis);
+    }
+
+    public List<String> getScaleIds() {
+        return new ArrayList<>(scales.keySet());
+    }
+
+    public boolean isOpen(String scaleId) {
+        SerialService service = scales.get(scaleId);
+        return service != null && service.isOpen();
+    }
+
+    /**
+     * Wait up to {@code timeout} for the next reading from any scale.
+     * @return the reading, or null on timeout
+     */
+    public WeightReading poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    /**
+     * Move up to {@code max} queued readings into {@code target} without waiting.
+     * @return number of readings moved
+     */
+    public int drainTo(Collection<? super WeightReading> target, int max) {
+        return queue.drainTo(target, max);
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Readings discarded because the shared queue was full.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        for (String id : getScaleIds()) {
+            removeScale(id);
+        }
+        queue.clear();
+    }
+}
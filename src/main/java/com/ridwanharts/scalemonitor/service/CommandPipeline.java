@@ -0,0 +1,218 @@
+package com.ridwanharts.scalemonitor.service;
+
+import com.ridwanharts.scalemonitor.codec.ScaleDecoder;
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import com.ridwanharts.scalemonitor.transport.ByteTransport;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Command queue of one {@link SerialService}.
+ * <p>
+ * A writer thread takes queued commands and writes as many as the in-flight window
+ * allows in a single transport write. Sent commands wait in FIFO order; decoded output
+ * that the active decoder accepts as an answer ({@link ScaleDecoder#isReplyTo}) completes
+ * the oldest one, anything else passes by. A command that gets no reply within its
+ * timeout fails with a {@link TimeoutException} but keeps its place for as long again,
+ * so a late reply is dropped instead of answering the next command.
+ *
+ * @author ridwan
+ */
+final class CommandPipeline {
+
+    private static final int QUEUE_CAPACITY = 1024;
+
+    // one timer for all pipelines, it only completes futures
+    private static final ScheduledThreadPoolExecutor TIMEOUTS = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "command-timeouts");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        TIMEOUTS.setRemoveOnCancelPolicy(true);
+    }
+
+    private static final class Pending {
+        final String command;
+        final byte[] bytes;
+        final long timeoutMillis;
+        final CompletableFuture<CommandResponse> future = new CompletableFuture<>();
+        final AtomicBoolean left = new AtomicBoolean(); // gave its window slot back
+        volatile long sentNanos;
+        volatile boolean late;                         // timed out, waits for a stray reply
+
+        Pending(String command, byte[] bytes, long timeoutMillis) {
+            this.command = command;
+            this.bytes = bytes;
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+
+    private final Supplier<ByteTransport> transport;
+    private final int maxInFlight;
+    private final BlockingQueue<Pending> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Queue<Pending> inFlight = new ConcurrentLinkedQueue<>();
+    private final Semaphore window;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * @param transport the currently open link, or null while closed
+     * @param maxInFlight commands sent before their replies arrived; 1 for strict request/response
+     */
+    CommandPipeline(Supplier<ByteTransport> transport, int maxInFlight, String name) {
+        this.transport = transport;
+        this.maxInFlight = maxInFlight;
+        this.window = new Semaphore(maxInFlight);
+        writer = new Thread(this::writeLoop, "commands-" + name);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    CompletableFuture<CommandResponse> submit(String command, byte[] bytes, long timeoutMillis) {
+        Pending p = new Pending(command, bytes, timeoutMillis);
+        if (closed || !queue.offer(p)) {
+            p.future.completeExceptionally(new IOException(closed ? "port closed" : "command queue full"));
+        }
+        return p.future;
+    }
+
+    /**
+     * True if a sent command is waiting for its reply; checked by the parsing thread
+     * before it copies anything.
+     */
+    boolean awaitingReply() {
+        return !inFlight.isEmpty();
+    }
+
+    /**
+     * Called by the parsing thread for every decoded reading or text; {@code decoder}
+     * decides whether it answers the oldest command.
+     */
+    void onOutput(ScaleDecoder decoder, WeightReading reading, String text) {
+        Pending p;
+        while ((p = inFlight.peek()) != null && !p.late && p.future.isDone()) {
+            inFlight.remove(p); // failed while being written, about to leave
+        }
+        if (p == null || !decoder.isReplyTo(p.command, reading, text) || !inFlight.remove(p)) {
+            return; // unsolicited output
+        }
+        if (p.late) {
+            leave(p); // the reply to a timed out command, drop it
+            return;
+        }
+        p.future.complete(new CommandResponse(p.command, reading != null ? reading.copy() : null, text,
+                System.nanoTime() - p.sentNanos));
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(maxInFlight);
+        Pending first = null;
+        try {
+            while (!closed) {
+                first = queue.take();
+                window.acquire();
+                enlist(first, batch);
+                first = null;
+                while (batch.size() < maxInFlight && !queue.isEmpty() && window.tryAcquire()) {
+                    Pending next = queue.poll();
+                    if (next == null) {
+                        window.release();
+                        break;
+                    }
+                    enlist(next, batch);
+                }
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            // closed while waiting for a command or a free slot
+            if (first != null) first.future.completeExceptionally(new IOException("port closed"));
+        }
+    }
+
+    private void enlist(Pending p, List<Pending> batch) {
+        // the permit goes back however the command ends: reply, error, close, or a timeout
+        // once its late reply arrived or the grace period is over
+        p.future.whenComplete((r, e) -> {
+            if (p.late && !closed) {
+                TIMEOUTS.schedule(() -> leave(p), p.timeoutMillis, TimeUnit.MILLISECONDS);
+            } else {
+                leave(p);
+            }
+        });
+        batch.add(p);
+    }
+
+    private void leave(Pending p) {
+        if (p.left.compareAndSet(false, true)) {
+            inFlight.remove(p);
+            window.release();
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        ByteTransport t = transport.get();
+        if (t == null || !t.isOpen()) {
+            for (Pending p : batch) p.future.completeExceptionally(new IOException("not connected"));
+            return;
+        }
+        int length = 0;
+        for (Pending p : batch) length += p.bytes.length;
+        byte[] data = new byte[length];
+        int off = 0; // commands failed meanwhile leave the tail unused
+        long now = System.nanoTime();
+        for (Pending p : batch) {
+            if (p.future.isDone()) continue; // failed by close() meanwhile
+            System.arraycopy(p.bytes, 0, data, off, p.bytes.length);
+            off += p.bytes.length;
+            p.sentNanos = now;
+            inFlight.add(p); // before writing, a reply can be faster than write() returning
+            ScheduledFuture<?> timer = TIMEOUTS.schedule(() -> timeout(p), p.timeoutMillis, TimeUnit.MILLISECONDS);
+            p.future.whenComplete((r, e) -> timer.cancel(false));
+        }
+        try {
+            int written = t.write(data, 0, off);
+            if (written < off) {
+                throw new IOException("short write to " + t.getName() + ": " + written + " of " + off + " bytes");
+            }
+        } catch (IOException | RuntimeException ex) {
+            for (Pending p : batch) p.future.completeExceptionally(ex);
+        }
+    }
+
+    private static void timeout(Pending p) {
+        p.late = true; // before completing, so the parsing thread never sees it done but not late
+        if (!p.future.completeExceptionally(
+                new TimeoutException("no reply to " + p.command.trim() + " within " + p.timeoutMillis + " ms"))) {
+            p.late = false;
+        }
+    }
+
+    private void failAll(String reason) {
+        List<Pending> pending = new ArrayList<>(inFlight);
+        queue.drainTo(pending);
+        for (Pending p : pending) p.future.completeExceptionally(new IOException(reason));
+    }
+
+    void close() {
+        closed = true;
+        writer.interrupt();
+        failAll("port closed");
+        for (Pending p : inFlight) leave(p); // timed out ones still waiting for a stray reply
+    }
+}
@@ -0,0 +1,54 @@
+package com.ridwanharts.scalemonitor.service;
+
+import com.ridwanharts.scalemonitor.model.WeightReading;
+
+/**
+ * Reply to a command sent with {@link SerialService#request}: the first thing the active
+ * codec decoded after the command went out, either a typed reading or a line of text.
+ *
+ * @author ridwan
+ */
+public final class CommandResponse {
+
+    private final String command;
+    private final WeightReading reading;
+    private final String text;
+    private final long roundTripNanos;
+
+    CommandResponse(String command, WeightReading reading, String text, long roundTripNanos) {
+        this.command = command;
+        this.reading = reading;
+        this.text = text;
+        this.roundTripNanos = roundTripNanos;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    /**
+     * The decoded reading (a private copy), or null if the codec produced text.
+     */
+    public WeightReading getReading() {
+        return reading;
+    }
+
+    /**
+     * The decoded text, or null if the codec produced a reading.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Time from writing the command to decoding the reply.
+     */
+    public long getRoundTripNanos() {
+        return roundTripNanos;
+    }
+
+    @Override
+    public String toString() {
+        return (reading != null ? reading.toString() : text) + " (" + roundTripNanos / 1000 + " us)";
+    }
+}
@@ -0,0 +1,184 @@
+package com.ridwanharts.scalemonitor.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Polls many scales round-robin at a fixed overall rate, e.g. 20 polls per second spread
+ * over the stations of a line. Each tick sends one request to the next target; a target
+ * whose last poll is still unanswered is skipped, so a dead scale never piles up requests
+ * or holds up the others. Nothing here blocks: replies arrive through the listener on the
+ * scales' parsing threads.
+ *
+ * @author ridwan
+ */
+public class PollScheduler implements AutoCloseable {
+
+    /**
+     * Something that answers commands, e.g. {@code serialService::request}.
+     */
+    @FunctionalInterface
+    public interface CommandTarget {
+        CompletableFuture<CommandResponse> request(String command, long timeoutMillis);
+    }
+
+    /**
+     * Receives poll outcomes, on the thread that completed the request. Exceptions thrown
+     * here are counted ({@link #getListenerErrorCount()}) and otherwise ignored.
+     */
+    public interface Listener {
+
+        void onResponse(String target, CommandResponse response);
+
+        /**
+         * No reply in time, the request could not be sent, or the port is closed.
+         */
+        default void onFailure(String target, Throwable error) {
+        }
+    }
+
+    private static final class Target {
+        final String name;
+        final CommandTarget target;
+        final String command;
+        final long timeoutMillis;
+        final AtomicBoolean busy = new AtomicBoolean();
+
+        Target(String name, CommandTarget target, String command, long timeoutMillis) {
+            this.name = name;
+            this.target = target;
+            this.command = command;
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+
+    private final List<Target> targets = new CopyOnWriteArrayList<>();
+    private final long periodNanos;
+    private final Listener listener;
+    private final ScheduledExecutorService ticker;
+    private int next; // only touched by the ticker thread
+
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder replies = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder listenerErrors = new LongAdder();
+
+    /**
+     * @param pollsPerSecond total rate over all targets
+     */
+    public PollScheduler(double pollsPerSecond, Listener listener) {
+        if (pollsPerSecond <= 0) throw new IllegalArgumentException("pollsPerSecond must be positive");
+        this.periodNanos = Math.max(1, (long) (1e9 / pollsPerSecond));
+        this.listener = listener;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "poll-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Poll {@code target} with {@code command} from the next round on. Names must be unique.
+     */
+    public void addTarget(String name, CommandTarget target, String command, long timeoutMillis) {
+        removeTarget(name);
+        targets.add(new Target(name, target, command, timeoutMillis));
+    }
+
+    public void removeTarget(String name) {
+        targets.removeIf(t -> t.name.equals(name));
+    }
+
+    public void start() {
+        ticker.scheduleAtFixedRate(this::tick, 0, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void tick() {
+        int n = targets.size();
+        for (int tried = 0; tried < n; tried++) {
+            Target t;
+            try {
+                t = targets.get(Math.floorMod(next++, n));
+            } catch (IndexOutOfBoundsException removed) {
+                return; // list shrank meanwhile, next tick sees the new size
+            }
+            if (!t.busy.compareAndSet(false, true)) {
+                skipped.increment();
+                continue;
+            }
+            polls.increment();
+            try {
+                t.target.request(t.command, t.timeoutMillis).whenComplete((r, e) -> done(t, r, e));
+            } catch (RuntimeException ex) {
+                done(t, null, ex);
+            }
+            return;
+        }
+    }
+
+    private void done(Target t, CommandResponse response, Throwable error) {
+        t.busy.set(false);
+        // may run on the ticker thread, where an escaping exception would cancel polling
+        try {
+            if (error == null) {
+                replies.increment();
+                listener.onResponse(t.name, response);
+                return;
+            }
+            Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+            if (cause instanceof TimeoutException) {
+                timeouts.increment();
+            } else {
+                failures.increment();
+            }
+            listener.onFailure(t.name, cause);
+        } catch (RuntimeException ex) {
+            listenerErrors.increment();
+        }
+    }
+
+    public long getPollCount() {
+        return polls.sum();
+    }
+
+    public long getReplyCount() {
+        return replies.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Turns passed over because the target had not answered its previous poll yet.
+     */
+    public long getSkippedCount() {
+        return skipped.sum();
+    }
+
+    /**
+     * Exceptions thrown by the listener.
+     */
+    public long getListenerErrorCount() {
+        return listenerErrors.sum();
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+}
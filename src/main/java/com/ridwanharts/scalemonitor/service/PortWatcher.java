@@ -0,0 +1,103 @@
+package com.ridwanharts.scalemonitor.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Enumerates serial ports on a background thread, on a schedule and on demand, and reports
+ * ports that appeared or disappeared since the previous scan. Enumeration can take seconds
+ * with many USB-serial adapters, so callers (the FX thread in particular) never wait for it.
+ *
+ * @author ridwan
+ */
+public class PortWatcher implements AutoCloseable {
+
+    /**
+     * Called on the watcher thread after the first scan and whenever the port set changes.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void portsChanged(List<String> ports, List<String> added, List<String> removed);
+    }
+
+    private final Supplier<List<String>> enumerator;
+    private final Listener listener;
+    private final ScheduledExecutorService executor;
+    private volatile List<String> ports = Collections.emptyList();
+    private boolean scanned; // watcher thread only
+
+    public PortWatcher(Listener listener) {
+        this(SerialService::enumeratePorts, listener);
+    }
+
+    /**
+     * @param enumerator returns the current port names, called on the watcher thread
+     */
+    public PortWatcher(Supplier<List<String>> enumerator, Listener listener) {
+        this.enumerator = enumerator;
+        this.listener = listener;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "port-watcher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Scan now and then every {@code periodMillis}.
+     */
+    public void start(long periodMillis) {
+        executor.scheduleWithFixedDelay(this::scan, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Scan as soon as the watcher thread is free.
+     * @return completes with the port list once the scan is done
+     */
+    public CompletableFuture<List<String>> refresh() {
+        return CompletableFuture.supplyAsync(() -> {
+            scan();
+            return ports;
+        }, executor);
+    }
+
+    /**
+     * Ports found by the last scan.
+     */
+    public List<String> getPorts() {
+        return ports;
+    }
+
+    private void scan() {
+        List<String> current;
+        try {
+            current = Collections.unmodifiableList(new ArrayList<>(enumerator.get()));
+        } catch (RuntimeException ex) {
+            return; // keep the last known list, try again next time
+        }
+        Set<String> before = new LinkedHashSet<>(ports);
+        List<String> added = new ArrayList<>();
+        for (String port : current) {
+            if (!before.remove(port)) added.add(port);
+        }
+        List<String> removed = new ArrayList<>(before);
+        ports = current;
+        if (!scanned || !added.isEmpty() || !removed.isEmpty()) {
+            scanned = true;
+            listener.portsChanged(current, added, removed);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -5,18 +5,47 @@
 package com.ridwanharts.scalemonitor.service;
 
 import com.fazecast.jSerialComm.SerialPort;
-import com.fazecast.jSerialComm.SerialPortDataListener;
-import com.fazecast.jSerialComm.SerialPortEvent;
-import com.ridwanharts.scalemonitor.util.ScaleFrameParser;
+import com.ridwanharts.scalemonitor.capture.CaptureWriter;
+import com.ridwanharts.scalemonitor.codec.AutoDetectCodec;
+import com.ridwanharts.scalemonitor.codec.CodecRegistry;
+import com.ridwanharts.scalemonitor.codec.DecodeSink;
+import com.ridwanharts.scalemonitor.codec.DecoderContext;
+import com.ridwanharts.scalemonitor.codec.FrameCodec;
+import com.ridwanharts.scalemonitor.codec.LineCodec;
+import com.ridwanharts.scalemonitor.codec.RawHexCodec;
+import com.ridwanharts.scalemonitor.codec.ScaleDecoder;
+import com.ridwanharts.scalemonitor.metrics.PortMetrics;
+import com.ridwanharts.scalemonitor.model.ReadingListener;
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import com.ridwanharts.scalemonitor.transport.ByteTransport;
+import com.ridwanharts.scalemonitor.transport.SerialPortTransport;
+import com.ridwanharts.scalemonitor.util.SpscByteRing;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
  * Serial communication service with multiple parsing modes for testing device protocols.
+ * The byte link itself is a {@link ByteTransport}, so the same pipeline runs on a COM
+ * port, a TCP converter or an in-memory pipe. Protocols are {@link com.ridwanharts.scalemonitor.codec.ScaleCodec}s
+ * looked up by name, so new ones plug in without changes here.
+ * <p>
+ * By default bytes are parsed on the transport's own thread. With
+ * {@link #setHandoff(int, SpscByteRing.Overflow)} the transport thread only copies bytes
+ * into a lock-free ring and a dedicated decoder thread parses and calls back, so a slow
+ * consumer never holds up reading from the device.
+ * <p>
+ * With {@link #setAutoReconnect(long, long)} a link that drops (cable pulled, converter
+ * rebooted) is reopened in the background with exponential backoff. The session keeps
+ * its decoder and metrics, so a reconnect looks like a pause in the stream.
+ * <p>
+ * Polled scales are driven with {@link #request(String, long)}: commands are queued,
+ * written by their own thread and answered by the next output the active codec accepts as a reply.
  * @author ridwan
  */
 public class SerialService {
@@ -25,18 +54,70 @@ public class SerialService {
      * Enum to select data parsing mode for debugging different device protocols
      */
     public enum ParseMode {
-        LINE_BASED,        // Mode 1: Read and accept when contain \n, else append to StringBuilder
-        FRAME_PARSER,      // Mode 2: Use ScaleFrameParser for fixed 15-byte frames
-        RAW_DEBUG          // Mode 3: Raw hex dump for debugging unknown protocols
+        LINE_BASED(LineCodec.NAME),         // Mode 1: Read and accept when contain \n, else append to the line buffer
+        FRAME_PARSER(FrameCodec.NAME),      // Mode 2: Use ScaleFrameParser for fixed 15-byte frames
+        RAW_DEBUG(RawHexCodec.NAME),        // Mode 3: Raw hex dump for debugging unknown protocols
+        AUTO_DETECT(AutoDetectCodec.NAME);  // Mode 4: Try all codecs on the first bytes and keep the best
+
+        private final String codecName;
+
+        ParseMode(String codecName) {
+            this.codecName = codecName;
+        }
+
+        public String getCodecName() {
+            return codecName;
+        }
     }
 
-    private SerialPort activePort;
-    private SerialPortDataListener dataListener;
-    private final StringBuilder sb = new StringBuilder();
-    private ScaleFrameParser parser;
-    private ParseMode parseMode = ParseMode.RAW_DEBUG; // Default to RAW_DEBUG to see what device sends
+    /**
+     * Told when the link drops and when an automatic reconnect succeeds. Called on
+     * transport or reconnect threads.
+     */
+    @FunctionalInterface
+    public interface ConnectionListener {
+        void connectionChanged(String portName, boolean connected);
+    }
+
+    private static final int DECODE_BUFFER_SIZE = 4096;
+    private static final long DECODER_IDLE_PARK_NANOS = 10_000_000;
+
+    private volatile ByteTransport activeTransport;
+    private volatile ParseMode parseMode = ParseMode.RAW_DEBUG; // Default to RAW_DEBUG to see what device sends
+    private volatile String codecName = RawHexCodec.NAME; // picked up by the parsing thread
+    private volatile ReadingListener readingListener;
+    private boolean rawDumpClassic;
+    private int rawDumpBytesPerLine = 64;
+    private boolean continuousOutput;
+
+    private volatile CaptureWriter captureWriter;
+
+    private int handoffCapacity;                          // 0 = parse on the transport thread
+    private SpscByteRing.Overflow handoffOverflow = SpscByteRing.Overflow.DROP_OLDEST;
+    private volatile SpscByteRing ring;
+    private Thread decoder;
+
+    private PortMetrics presetMetrics;                    // set by setMetrics, kept across opens
+    private volatile PortMetrics metrics;                 // metrics of the current session
+
+    private long reconnectInitialMillis;                  // 0 = stay closed after a disconnect
+    private long reconnectMaxMillis;
+    private volatile ConnectionListener connectionListener;
+    private volatile Session session;
+
+    private volatile String commandTerminator = "";
+    private int maxCommandsInFlight = 1;
+    private volatile CommandPipeline commands;            // created by the first request
 
     public List<String> listPorts() {
+        return enumeratePorts();
+    }
+
+    /**
+     * System names of all serial ports. Can take seconds with many USB adapters, so keep
+     * it off the FX thread (see {@link PortWatcher}).
+     */
+    static List<String> enumeratePorts() {
         List<String> list = new ArrayList<>();
         for (SerialPort p : SerialPort.getCommPorts()) {
             list.add(p.getSystemPortName());
@@ -44,98 +125,207 @@ public class SerialService {
         return list;
     }
 
-    public void open(String portName, int baudRate, Consumer<String> onData, Consumer<String> onError) {
-        close(); // close existing
-
-        SerialPort port = SerialPort.getCommPort(portName);
-        port.setBaudRate(baudRate);
-        port.setNumDataBits(8);
-        port.setNumStopBits(SerialPort.ONE_STOP_BIT);
-        port.setParity(SerialPort.NO_PARITY);
+    public boolean open(String portName, int baudRate, Consumer<String> onData, Consumer<String> onError) {
+        return open(new SerialPortTransport(portName, baudRate), onData, onError);
+    }
 
-        // Use event-driven reads (no read timeout dependency)
-        port.setComPortTimeouts(SerialPort.TIMEOUT_NONBLOCKING, 0, 0);
+    /**
+     * Open any transport and run the selected parse mode on the bytes it receives.
+     * @return false if the transport could not be opened (onError is told why)
+     */
+    public boolean open(ByteTransport transport, Consumer<String> onData, Consumer<String> onError) {
+        close(); // close existing
 
-        if (!port.openPort()) {
-            onError.accept("Unable to open port " + portName);
-            return;
-        }
+        PortMetrics m = (presetMetrics != null) ? presetMetrics : new PortMetrics(transport.getName());
 
-        activePort = port;
-        parser = new ScaleFrameParser(); // new parser instance for this session
+        SpscByteRing sessionRing = (handoffCapacity > 0) ? new SpscByteRing(handoffCapacity, handoffOverflow) : null;
+        m.setQueueDepthSource(sessionRing != null ? sessionRing::size : null);
+        // arrival time of the oldest bytes not yet taken by the decoder, 0 = none pending
+        AtomicLong pendingSince = new AtomicLong();
+        Consumer<String> countingOnError = message -> {
+            m.error(message);
+            onError.accept(message);
+        };
+        // new decoder state for this session
+        Session session = new Session(new DecoderContext(m, rawDumpClassic, rawDumpBytesPerLine, continuousOutput), onData, countingOnError);
+        CaptureWriter capture = captureWriter;
+        int capturePort = (capture != null) ? capture.registerPort(transport.getName()) : -1;
+        long reconnectInitial = reconnectInitialMillis;
+        long reconnectMax = reconnectMaxMillis;
+        ByteTransport.DataHandler handler = new ByteTransport.DataHandler() {
+            @Override
+            public void onData(byte[] buffer, int off, int len) {
+                long now = System.nanoTime();
+                m.addBytes(len);
+                if (capture != null) {
+                    capture.append(capturePort, now, buffer, off, len);
+                }
+                if (sessionRing != null) {
+                    pendingSince.compareAndSet(0, now);
+                    sessionRing.offer(buffer, off, len); // decoder thread takes it from here
+                } else {
+                    dispatch(session, buffer, off, len);
+                    m.recordLatency(System.nanoTime() - now);
+                }
+            }
 
-        dataListener = new SerialPortDataListener() {
             @Override
-            public int getListeningEvents() {
-                return SerialPort.LISTENING_EVENT_DATA_AVAILABLE;
+            public void onError(String message) {
+                countingOnError.accept(message);
             }
 
             @Override
-            public void serialEvent(SerialPortEvent event) {
-                if (event.getEventType() != SerialPort.LISTENING_EVENT_DATA_AVAILABLE) return;
-                try {
-                    int available = port.bytesAvailable();
-                    if (available <= 0) return;
-                    byte[] buffer = new byte[available];
-                    int read = port.readBytes(buffer, buffer.length);
-                    if (read > 0) {
-                        switch (parseMode) {
-                            case LINE_BASED:
-                                parseLineBasedData(buffer, read, onData);
-                                break;
-                            case FRAME_PARSER:
-                                parseFrameData(buffer, read, onData, onError);
-                                break;
-                            case RAW_DEBUG:
-                                parseRawDebugData(buffer, read, onData);
-                                break;
-                        }
-                    }
-                } catch (Exception ex) {
-                    onError.accept(ex.getMessage());
+            public void onDisconnected(String reason) {
+                countingOnError.accept(reason);
+                notifyConnection(transport.getName(), false);
+                if (reconnectInitial > 0 && !session.closed) {
+                    startReconnect(session, transport, this, reconnectInitial, reconnectMax);
                 }
             }
         };
+        boolean opened = transport.open(handler);
 
-        port.addDataListener(dataListener);
+        metrics = m;
+        if (!opened) {
+            countingOnError.accept("Unable to open port " + transport.getName());
+            return false;
+        }
+
+        activeTransport = transport;
+        this.session = session;
+        ring = sessionRing;
+        if (sessionRing != null) {
+            decoder = new Thread(() -> decodeLoop(sessionRing, pendingSince, m, session),
+                    "decoder-" + transport.getName());
+            decoder.setDaemon(true);
+            decoder.start();
+        }
+        return true;
     }
 
-    /**
-     * Mode 1: LINE_BASED - Buffers data until newline character is found
-     */
-    private void parseLineBasedData(byte[] buffer, int read, Consumer<String> onData) {
-        String chunk = new String(buffer, 0, read, StandardCharsets.UTF_8);
-        synchronized (sb) {
-            for (char ch : chunk.toCharArray()) {
-                if (ch == '\n') {
-                    String line = sb.toString().replace("\r", "");
-                    sb.setLength(0);
-                    onData.accept(line);
+    private void startReconnect(Session s, ByteTransport transport, ByteTransport.DataHandler handler,
+                                long initialDelay, long maxDelay) {
+        if (!s.reconnecting.compareAndSet(false, true)) return; // already on it
+        Thread t = new Thread(() -> reconnectLoop(s, transport, handler, initialDelay, maxDelay),
+                "reconnect-" + transport.getName());
+        t.setDaemon(true);
+        s.reconnector = t;
+        t.start();
+    }
+
+    private void reconnectLoop(Session s, ByteTransport transport, ByteTransport.DataHandler handler,
+                               long initialDelay, long maxDelay) {
+        long delay = initialDelay;
+        while (!s.closed) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException ex) {
+                break; // close() wants us gone
+            }
+            if (s.closed) break;
+            transport.close();
+            s.reconnecting.set(false); // a drop right after reopening must start a new attempt
+            if (transport.open(handler)) {
+                if (s.closed) {
+                    transport.close();
                 } else {
-                    sb.append(ch);
+                    s.context.getMetrics().reconnected();
+                    notifyConnection(transport.getName(), true);
                 }
+                return;
             }
+            if (!s.reconnecting.compareAndSet(false, true)) return; // another attempt took over
+            delay = Math.min(delay * 2, maxDelay);
         }
+        s.reconnecting.set(false);
     }
 
-    /**
-     * Mode 2: FRAME_PARSER - Uses ScaleFrameParser for fixed 15-byte frame protocol
-     */
-    private void parseFrameData(byte[] buffer, int read, Consumer<String> onData, Consumer<String> onError) {
-        byte[] chunk = (read == buffer.length) ? buffer : Arrays.copyOf(buffer, read);
-        parser.feed(chunk, onData, onError);
+    private void notifyConnection(String portName, boolean connected) {
+        ConnectionListener listener = connectionListener;
+        if (listener != null) {
+            listener.connectionChanged(portName, connected);
+        }
+    }
+
+    private void decodeLoop(SpscByteRing source, AtomicLong pendingSince, PortMetrics m, Session session) {
+        byte[] buffer = new byte[DECODE_BUFFER_SIZE];
+        while (!source.isClosed()) {
+            long since = pendingSince.getAndSet(0);
+            int n = source.poll(buffer);
+            if (n > 0) {
+                dispatch(session, buffer, 0, n);
+                if (since != 0) m.recordLatency(System.nanoTime() - since);
+            } else {
+                if (since != 0) pendingSince.compareAndSet(0, since); // stamped, bytes not visible yet
+                source.awaitData(DECODER_IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void dispatch(Session session, byte[] buffer, int off, int len) {
+        try {
+            String name = codecName;
+            if (!name.equals(session.codecName)) {
+                // mode switched: start the new codec from a clean state
+                session.decoder = CodecRegistry.get(name).newDecoder(session.context);
+                session.codecName = name;
+            }
+            session.decoder.decode(buffer, off, len, session);
+        } catch (Exception ex) {
+            session.onError.accept(ex.getMessage());
+        }
     }
 
     /**
-     * Mode 3: RAW_DEBUG - Converts raw bytes to hex string for debugging unknown protocols
+     * Decoder state of one open session, and the sink its output goes to. Only used by the
+     * parsing thread. Typed readings go to the reading listener when one is registered,
+     * everything else to the onData text callback.
      */
-    private void parseRawDebugData(byte[] buffer, int read, Consumer<String> onData) {
-        byte[] chunk = (read == buffer.length) ? buffer : Arrays.copyOf(buffer, read);
-        StringBuilder hex = new StringBuilder();
-        for (byte b : chunk) {
-            hex.append(String.format("%02X ", b));
+    private final class Session implements DecodeSink {
+        final DecoderContext context;
+        final Consumer<String> onData;
+        final Consumer<String> onError;
+        String codecName;
+        ScaleDecoder decoder;
+        // reconnect state, shared with transport and reconnect threads
+        volatile boolean closed;
+        final AtomicBoolean reconnecting = new AtomicBoolean();
+        volatile Thread reconnector;
+
+        Session(DecoderContext context, Consumer<String> onData, Consumer<String> onError) {
+            this.context = context;
+            this.onData = onData;
+            this.onError = onError;
+        }
+
+        @Override
+        public boolean wantsReadings() {
+            return readingListener != null;
+        }
+
+        @Override
+        public void onReading(WeightReading reading) {
+            CommandPipeline c = commands;
+            if (c != null && c.awaitingReply()) c.onOutput(decoder, reading, null);
+            ReadingListener listener = readingListener;
+            if (listener != null) {
+                listener.onReading(reading);
+            } else {
+                onData.accept(reading.toString());
+            }
+        }
+
+        @Override
+        public void onText(String text) {
+            CommandPipeline c = commands;
+            if (c != null && c.awaitingReply()) c.onOutput(decoder, null, text);
+            onData.accept(text);
+        }
+
+        @Override
+        public void onError(String message) {
+            onError.accept(message); // bad frames may be unrelated traffic, never an answer
         }
-        onData.accept("[RAW HEX] " + hex);
     }
 
     /**
@@ -144,44 +334,245 @@ public class SerialService {
      */
     public void setParseMode(ParseMode mode) {
         this.parseMode = mode;
-        // Clear buffer when switching modes
-        synchronized (sb) {
-            sb.setLength(0);
-        }
+        // the parsing thread starts a fresh decoder when it sees the new codec
+        this.codecName = mode.getCodecName();
     }
 
     /**
-     * Get current parsing mode
+     * Get current parsing mode, null if a codec without a ParseMode was selected
      */
     public ParseMode getParseMode() {
         return parseMode;
     }
 
+    /**
+     * Select any registered codec by name, including third-party ones.
+     * @throws IllegalArgumentException if no codec has that name
+     */
+    public void setCodec(String name) {
+        CodecRegistry.get(name);
+        ParseMode mode = null;
+        for (ParseMode m : ParseMode.values()) {
+            if (m.getCodecName().equals(name)) mode = m;
+        }
+        this.parseMode = mode;
+        this.codecName = name;
+    }
+
+    public String getCodecName() {
+        return codecName;
+    }
+
+    /**
+     * Receive typed readings instead of text in FRAME_PARSER mode. The reading passed to
+     * the listener is reused for every frame and is only valid during the callback.
+     * @param listener the listener, or null to go back to the onData text callback
+     */
+    public void setReadingListener(ReadingListener listener) {
+        this.readingListener = listener;
+    }
+
+    /**
+     * Record every received chunk, before parsing, from the next {@link #open} on.
+     * The writer is not closed by this service.
+     * @param writer the capture to append to, or null to stop recording
+     */
+    public void setCaptureWriter(CaptureWriter writer) {
+        this.captureWriter = writer;
+    }
+
+    /**
+     * RAW_DEBUG layout for the next {@link #open}.
+     * @param classic offset / hex / ASCII columns instead of plain hex bytes
+     * @param maxBytesPerLine bursts longer than this are emitted as several lines
+     */
+    public void setRawDumpFormat(boolean classic, int maxBytesPerLine) {
+        if (maxBytesPerLine <= 0) throw new IllegalArgumentException("maxBytesPerLine must be positive");
+        this.rawDumpClassic = classic;
+        this.rawDumpBytesPerLine = maxBytesPerLine;
+    }
+
+    /**
+     * Whether the scale streams readings on its own, for the next {@link #open}. Streamed
+     * readings then never answer a {@link #request}; only output the codec can tell apart
+     * (e.g. acknowledgement lines) does.
+     */
+    public void setContinuousOutput(boolean continuous) {
+        this.continuousOutput = continuous;
+    }
+
+    /**
+     * Decouple reading from parsing for the next {@link #open}: the transport thread only
+     * copies bytes into a ring of {@code capacity} bytes and a decoder thread parses them.
+     * @param capacity ring size in bytes, 0 to parse directly on the transport thread
+     * @param overflow what to do when the decoder falls behind and the ring is full
+     */
+    public void setHandoff(int capacity, SpscByteRing.Overflow overflow) {
+        this.handoffCapacity = capacity;
+        this.handoffOverflow = overflow;
+    }
+
+    /**
+     * Bytes lost because the handoff ring was full (overwritten or dropped).
+     */
+    public long getHandoffOverruns() {
+        SpscByteRing r = ring;
+        return (r == null) ? 0 : r.getOverwrittenBytes() + r.getDroppedBytes();
+    }
+
+    /**
+     * Times the transport thread waited for the decoder under {@link SpscByteRing.Overflow#BLOCK}.
+     */
+    public long getHandoffBlockedCount() {
+        SpscByteRing r = ring;
+        return (r == null) ? 0 : r.getBlockedCount();
+    }
+
+    /**
+     * Bytes waiting in the handoff ring.
+     */
+    public int getHandoffBacklog() {
+        SpscByteRing r = ring;
+        return (r == null) ? 0 : r.size();
+    }
+
+    /**
+     * Count into {@code metrics} from the next {@link #open} on, and keep using the same
+     * object across reopens; null to get fresh metrics on every open.
+     */
+    public void setMetrics(PortMetrics metrics) {
+        this.presetMetrics = metrics;
+    }
+
+    /**
+     * Metrics of the current (or last) session, null before the first {@link #open}.
+     */
+    public PortMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Reopen the link by itself after it drops, starting with a wait of
+     * {@code initialDelayMillis} and doubling it up to {@code maxDelayMillis} between
+     * failed attempts. Applies from the next {@link #open}.
+     * @param initialDelayMillis first wait, 0 to disable
+     */
+    public void setAutoReconnect(long initialDelayMillis, long maxDelayMillis) {
+        this.reconnectInitialMillis = initialDelayMillis;
+        this.reconnectMaxMillis = Math.max(initialDelayMillis, maxDelayMillis);
+    }
+
+    public void setConnectionListener(ConnectionListener listener) {
+        this.connectionListener = listener;
+    }
+
+    public boolean isOpen() {
+        ByteTransport t = activeTransport;
+        return t != null && t.isOpen();
+    }
+
+    /**
+     * True while the link is down and being reopened automatically.
+     */
+    public boolean isReconnecting() {
+        Session s = session;
+        return s != null && s.reconnecting.get();
+    }
+
     public void close() {
+        CommandPipeline c = commands;
+        commands = null;
+        if (c != null) c.close(); // fails what is still queued or waiting
+        Session s = session;
+        session = null;
+        if (s != null) {
+            s.closed = true;
+            Thread r = s.reconnector;
+            if (r != null && r != Thread.currentThread()) r.interrupt();
+        }
         try {
-            if (activePort != null) {
-                if (dataListener != null) {
-                    activePort.removeDataListener();
-                    dataListener = null;
-                }
-                if (activePort.isOpen()) {
-                    activePort.closePort();
+            if (activeTransport != null) {
+                activeTransport.close();
+            }
+        } catch (Exception ex) {
+            PortMetrics m = metrics;
+            if (m != null) m.error("close failed: " + ex);
+        }
+        activeTransport = null;
+        if (ring != null) {
+            ring.close();
+        }
+        Thread d = decoder;
+        decoder = null;
+        if (d != null && d != Thread.currentThread()) {
+            try {
+                d.join(1000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Appended to every command written by {@link #send} and {@link #request}, e.g.
+     * "\r\n"; empty by default.
+     */
+    public void setCommandTerminator(String terminator) {
+        this.commandTerminator = (terminator == null) ? "" : terminator;
+    }
+
+    public String getCommandTerminator() {
+        return commandTerminator;
+    }
+
+    /**
+     * How many requests may be sent before their replies arrive, from the first
+     * {@link #request} on. Requests sent together go out in one write. Keep 1 (the
+     * default) for scales that only accept a command once they answered the last one.
+     */
+    public void setMaxCommandsInFlight(int max) {
+        if (max <= 0) throw new IllegalArgumentException("max must be positive");
+        this.maxCommandsInFlight = max;
+    }
+
+    /**
+     * Queue {@code command} (plus the terminator) for sending and complete with the next
+     * reading or text the active codec accepts as its answer after it went out. Never
+     * blocks; the future is completed on the parsing thread, so hand slow work off with
+     * the {@code ...Async} variants.
+     * @return fails with a {@link java.util.concurrent.TimeoutException} when no reply
+     *         arrives within {@code timeoutMillis}, or an IOException when the port is closed
+     */
+    public CompletableFuture<CommandResponse> request(String command, long timeoutMillis) {
+        return commandPipeline().submit(command, (command + commandTerminator).getBytes(StandardCharsets.UTF_8),
+                timeoutMillis);
+    }
+
+    private CommandPipeline commandPipeline() {
+        CommandPipeline c = commands;
+        if (c == null) {
+            synchronized (this) {
+                c = commands;
+                if (c == null) {
+                    ByteTransport t = activeTransport;
+                    c = new CommandPipeline(() -> activeTransport, maxCommandsInFlight,
+                            (t != null) ? t.getName() : "serial");
+                    commands = c;
                 }
             }
-        } catch (Exception ignored) {}
-        activePort = null;
-        parser = null;
-        synchronized (sb) {
-            sb.setLength(0);
         }
+        return c;
     }
 
+    /**
+     * Write {@code text} plus the command terminator without waiting for a reply.
+     */
     public boolean send(String text) {
-        if (activePort == null || !activePort.isOpen()) return false;
+        ByteTransport t = activeTransport;
+        if (t == null || !t.isOpen()) return false;
         try {
-            activePort.getOutputStream().write(text.getBytes(StandardCharsets.UTF_8));
-            activePort.getOutputStream().flush();
-            return true;
+            byte[] data = (text + commandTerminator).getBytes(StandardCharsets.UTF_8);
+            return t.write(data, 0, data.length) == data.length;
         } catch (Exception e) {
             return false;
         }
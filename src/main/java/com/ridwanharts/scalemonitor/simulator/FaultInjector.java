@@ -0,0 +1,96 @@
+package com.ridwanharts.scalemonitor.simulator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Scripted line faults for load tests. Each probability applies per frame.
+ * <p>
+ * Spec format (as used on the simulator command line), all keys optional:
+ * {@code bitflip=0.001,drop=0.001,truncate=0.001,checksum=0.01,storm=0.0005,stormlen=50}
+ * <ul>
+ *   <li>bitflip - flip one random bit of the frame</li>
+ *   <li>drop - lose one random byte</li>
+ *   <li>truncate - cut the frame short</li>
+ *   <li>checksum - corrupt the checksum digits</li>
+ *   <li>storm - start a run of {@code stormlen} OL or LO frames</li>
+ * </ul>
+ * Immutable; the random source and storm state live in the caller.
+ *
+ * @author ridwan
+ */
+public final class FaultInjector {
+
+    public static final FaultInjector NONE = new FaultInjector(0, 0, 0, 0, 0, 0);
+
+    final double bitFlip;
+    final double drop;
+    final double truncate;
+    final double badChecksum;
+    final double storm;
+    final int stormLength;
+
+    public FaultInjector(double bitFlip, double drop, double truncate, double badChecksum,
+                         double storm, int stormLength) {
+        this.bitFlip = bitFlip;
+        this.drop = drop;
+        this.truncate = truncate;
+        this.badChecksum = badChecksum;
+        this.storm = storm;
+        this.stormLength = stormLength;
+    }
+
+    public static FaultInjector parse(String spec) {
+        double bitFlip = 0, drop = 0, truncate = 0, checksum = 0, storm = 0;
+        int stormLength = 50;
+        if (spec != null && !spec.isBlank()) {
+            for (String part : spec.split(",")) {
+                String[] kv = part.trim().split("=", 2);
+                if (kv.length != 2) throw new IllegalArgumentException("bad fault spec: " + part);
+                String key = kv[0].trim();
+                String value = kv[1].trim();
+                switch (key) {
+                    case "bitflip": bitFlip = Double.parseDouble(value); break;
+                    case "drop": drop = Double.parseDouble(value); break;
+                    case "truncate": truncate = Double.parseDouble(value); break;
+                    case "checksum": checksum = Double.parseDouble(value); break;
+                    case "storm": storm = Double.parseDouble(value); break;
+                    case "stormlen": stormLength = Integer.parseInt(value); break;
+                    default: throw new IllegalArgumentException("unknown fault: " + key);
+                }
+            }
+        }
+        return new FaultInjector(bitFlip, drop, truncate, checksum, storm, stormLength);
+    }
+
+    boolean isNone() {
+        return bitFlip == 0 && drop == 0 && truncate == 0 && badChecksum == 0 && storm == 0;
+    }
+
+    /**
+     * Damage the frame at {@code buf[off..off+len)} in place.
+     * @return the frame's new length (shorter after drop / truncate)
+     */
+    int apply(SplittableRandom rnd, byte[] buf, int off, int len) {
+        if (badChecksum > 0 && rnd.nextDouble() < badChecksum) {
+            buf[off + 11] ^= 0x01;
+        }
+        if (bitFlip > 0 && rnd.nextDouble() < bitFlip) {
+            buf[off + rnd.nextInt(len)] ^= (byte) (1 << rnd.nextInt(8));
+        }
+        if (drop > 0 && rnd.nextDouble() < drop) {
+            int at = rnd.nextInt(len);
+            System.arraycopy(buf, off + at + 1, buf, off + at, len - at - 1);
+            len--;
+        }
+        if (truncate > 0 && rnd.nextDouble() < truncate && len > 1) {
+            len = 1 + rnd.nextInt(len - 1);
+        }
+        return len;
+    }
+
+    @Override
+    public String toString() {
+        return "bitflip=" + bitFlip + ",drop=" + drop + ",truncate=" + truncate
+                + ",checksum=" + badChecksum + ",storm=" + storm + ",stormlen=" + stormLength;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ridwanharts.scalemonitor.simulator;
+
+import com.ridwanharts.scalemonitor.util.ScaleFrameEncoder;
+import com.ridwanharts.scalemonitor.util.ScaleFrameParser;
+import com.ridwanharts.scalemonitor.util.ScaleSimulator;
+import java.text.DecimalFormat;
+import java.util.Random;
+
+/**
+ * A pool of ready-made frames so generating traffic is just {@code System.arraycopy}.
+ * The pool is filled once with {@link ScaleSimulator#nextFrame}, i.e. the same mix of
+ * weights, overloads and lows the interactive simulator sends. Immutable after
+ * construction and safe to share between simulated scales.
+ *
+ * @author ridwan
+ */
+public final class FrameTemplates {
+
+    static final int LEN = ScaleFrameParser.FRAME_LENGTH;
+
+    private final byte[] frames;
+    private final int count;
+    private final byte[] overload = new byte[LEN];
+    private final byte[] underload = new byte[LEN];
+
+    public FrameTemplates(int count, long seed) {
+        this.count = count;
+        this.frames = new byte[count * LEN];
+        Random rnd = new Random(seed);
+        DecimalFormat df = new DecimalFormat("000.000");
+        for (int i = 0; i < count; i++) {
+            ScaleSimulator.nextFrame(rnd, df, frames, i * LEN);
+        }
+        ScaleFrameEncoder.overload(overload, 0);
+        ScaleFrameEncoder.underload(underload, 0);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Copy template {@code index} (wrapped to the pool size) into {@code dst[off..off+15)}.
+     */
+    public void copy(int index, byte[] dst, int off) {
+        System.arraycopy(frames, Math.floorMod(index, count) * LEN, dst, off, LEN);
+    }
+
+    public void copyOverload(byte[] dst, int off) {
+        System.arraycopy(overload, 0, dst, off, LEN);
+    }
+
+    public void copyUnderload(byte[] dst, int off) {
+        System.arraycopy(underload, 0, dst, off, LEN);
+    }
+}
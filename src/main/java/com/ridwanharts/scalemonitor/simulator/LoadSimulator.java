@@ -0,0 +1,139 @@
+package com.ridwanharts.scalemonitor.simulator;
+
+import com.fazecast.jSerialComm.SerialPort;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless load generator: many virtual scales at configurable rates with fault injection.
+ * <pre>
+ * --tcp 5000            scale i listens on localhost:5000+i (connect with TcpTransport)
+ * --serial COM3,COM5    one scale per port, see --baud (default 9600)
+ * --null                discard output, measures the generator itself
+ * --scales 20           number of scales for --tcp / --null (default 1)
+ * --rate 10             frames per second per scale, 0 = as fast as possible (default 10)
+ * --burst 1             frames per write (default 1)
+ * --faults spec         e.g. checksum=0.01,bitflip=0.001,storm=0.0005 (see FaultInjector)
+ * --duration 60         stop after N seconds, 0 = run until killed (default 0)
+ * --seed 1              random seed (default 1)
+ * </pre>
+ *
+ * @author ridwan
+ */
+public final class LoadSimulator {
+
+    private static final int TEMPLATE_COUNT = 4096;
+    private static final long REPORT_INTERVAL_MS = 5000;
+
+    private LoadSimulator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int scales = 1;
+        double rate = 10;
+        int burst = 1;
+        int baud = 9600;
+        long seed = 1;
+        long durationSec = 0;
+        FaultInjector faults = FaultInjector.NONE;
+        String serialPorts = null;
+        int tcpBase = -1;
+        boolean nullOutput = false;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--scales": scales = Integer.parseInt(args[++i]); break;
+                case "--rate": rate = Double.parseDouble(args[++i]); break;
+                case "--burst": burst = Integer.parseInt(args[++i]); break;
+                case "--baud": baud = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--duration": durationSec = Long.parseLong(args[++i]); break;
+                case "--faults": faults = FaultInjector.parse(args[++i]); break;
+                case "--serial": serialPorts = args[++i]; break;
+                case "--tcp": tcpBase = Integer.parseInt(args[++i]); break;
+                case "--null": nullOutput = true; break;
+                default:
+                    System.err.println("Unknown option " + arg);
+                    return;
+            }
+        }
+
+        List<OutputStream> outputs = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        if (serialPorts != null) {
+            for (String name : serialPorts.split(",")) {
+                SerialPort port = SerialPort.getCommPort(name.trim());
+                port.setComPortParameters(baud, 8, SerialPort.ONE_STOP_BIT, SerialPort.NO_PARITY);
+                port.setComPortTimeouts(SerialPort.TIMEOUT_WRITE_BLOCKING, 0, 0);
+                if (!port.openPort()) {
+                    System.err.println("Unable to open " + name);
+                    closeAll(outputs);
+                    return;
+                }
+                outputs.add(port.getOutputStream());
+                names.add(name.trim());
+            }
+        } else if (tcpBase >= 0) {
+            for (int i = 0; i < scales; i++) {
+                TcpFrameServer server = new TcpFrameServer(tcpBase + i);
+                outputs.add(server);
+                names.add("tcp:" + server.getPort());
+            }
+        } else if (nullOutput) {
+            for (int i = 0; i < scales; i++) {
+                outputs.add(OutputStream.nullOutputStream());
+                names.add("null-" + i);
+            }
+        } else {
+            System.err.println("Choose an output: --tcp <basePort>, --serial <ports> or --null");
+            return;
+        }
+
+        FrameTemplates templates = new FrameTemplates(TEMPLATE_COUNT, seed);
+        List<SimulatedScale> sims = new ArrayList<>();
+        for (int i = 0; i < outputs.size(); i++) {
+            sims.add(new SimulatedScale(names.get(i), outputs.get(i), templates, faults, rate, burst, seed + i + 1));
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            sims.forEach(SimulatedScale::stop);
+            closeAll(outputs);
+        }));
+
+        System.out.println("Simulating " + sims.size() + " scale(s) " + names
+                + " at " + (rate > 0 ? rate + " frames/s" : "max rate") + ", faults: " + faults);
+        sims.forEach(SimulatedScale::start);
+
+        long start = System.currentTimeMillis();
+        long lastFrames = 0;
+        long lastReport = start;
+        while (durationSec == 0 || System.currentTimeMillis() - start < durationSec * 1000) {
+            Thread.sleep(REPORT_INTERVAL_MS);
+            long frames = 0;
+            int alive = 0;
+            for (SimulatedScale s : sims) {
+                frames += s.getFramesSent();
+                if (s.isRunning()) alive++;
+                else if (s.getFailure() != null) System.err.println(s.getId() + ": " + s.getFailure().getMessage());
+            }
+            long now = System.currentTimeMillis();
+            System.out.printf("%d frames sent, %.0f frames/s, %d/%d scales running%n",
+                    frames, (frames - lastFrames) * 1000.0 / (now - lastReport), alive, sims.size());
+            lastFrames = frames;
+            lastReport = now;
+            if (alive == 0) break;
+        }
+        System.exit(0); // runs the shutdown hook
+    }
+
+    private static void closeAll(List<OutputStream> outputs) {
+        for (OutputStream out : outputs) {
+            try {
+                out.close();
+            } catch (IOException ignored) {}
+        }
+    }
+}
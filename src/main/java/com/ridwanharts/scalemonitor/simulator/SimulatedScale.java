@@ -0,0 +1,140 @@
+package com.ridwanharts.scalemonitor.simulator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One virtual scale streaming frames to an {@link OutputStream} on its own thread:
+ * a serial port, a TCP client or an in-process pipe.
+ * <p>
+ * Frames are copied from shared {@link FrameTemplates} into a reused burst buffer, run
+ * through the {@link FaultInjector} and written {@code burst} frames at a time. The rate
+ * is paced against {@link System#nanoTime()}, so a late write is caught up instead of
+ * drifting; a rate of 0 writes as fast as the output accepts.
+ *
+ * @author ridwan
+ */
+public class SimulatedScale {
+
+    private final String id;
+    private final OutputStream out;
+    private final FrameTemplates templates;
+    private final FaultInjector faults;
+    private final double framesPerSecond;
+    private final int burst;
+    private final SplittableRandom rnd;
+
+    private volatile boolean running;
+    private Thread thread;
+    private volatile long framesSent;
+    private volatile long bytesSent;
+    private volatile IOException failure;
+
+    /**
+     * @param framesPerSecond target rate, 0 for unlimited
+     * @param burst frames per write
+     */
+    public SimulatedScale(String id, OutputStream out, FrameTemplates templates, FaultInjector faults,
+                          double framesPerSecond, int burst, long seed) {
+        this.id = id;
+        this.out = out;
+        this.templates = templates;
+        this.faults = faults;
+        this.framesPerSecond = framesPerSecond;
+        this.burst = Math.max(1, burst);
+        this.rnd = new SplittableRandom(seed);
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::run, "sim-" + id);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        Thread t = thread;
+        thread = null;
+        if (t != null) {
+            t.interrupt();
+            try {
+                t.join(1000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        byte[] buf = new byte[burst * FrameTemplates.LEN];
+        boolean noFaults = faults.isNone();
+        int next = rnd.nextInt(templates.size());
+        int stormLeft = 0;
+        boolean stormOverload = true;
+        long intervalNanos = (framesPerSecond > 0) ? (long) (TimeUnit.SECONDS.toNanos(1) * burst / framesPerSecond) : 0;
+        long due = System.nanoTime();
+
+        try {
+            while (running) {
+                int len = 0;
+                for (int i = 0; i < burst; i++) {
+                    if (stormLeft == 0 && faults.storm > 0 && rnd.nextDouble() < faults.storm) {
+                        stormLeft = faults.stormLength;
+                        stormOverload = rnd.nextBoolean();
+                    }
+                    if (stormLeft > 0) {
+                        stormLeft--;
+                        if (stormOverload) templates.copyOverload(buf, len);
+                        else templates.copyUnderload(buf, len);
+                    } else {
+                        templates.copy(next++, buf, len);
+                    }
+                    len += noFaults ? FrameTemplates.LEN : faults.apply(rnd, buf, len, FrameTemplates.LEN);
+                }
+                out.write(buf, 0, len);
+                framesSent += burst;
+                bytesSent += len;
+
+                if (intervalNanos > 0) {
+                    due += intervalNanos;
+                    long wait;
+                    while (running && (wait = due - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(this, wait);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            failure = ex;
+        } finally {
+            running = false;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getFramesSent() {
+        return framesSent;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * The write error that stopped this scale, or null.
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+}
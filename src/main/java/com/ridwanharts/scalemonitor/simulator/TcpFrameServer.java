@@ -0,0 +1,82 @@
+package com.ridwanharts.scalemonitor.simulator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * Plays a serial-to-Ethernet converter in raw TCP server mode: listens on a local port and
+ * sends the scale's output to whichever client is connected. Without a client the bytes
+ * are discarded, like a converter with nobody attached. Use it as the output of a
+ * {@link SimulatedScale}.
+ *
+ * @author ridwan
+ */
+public class TcpFrameServer extends OutputStream {
+
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private volatile Socket client;
+    private volatile OutputStream clientOut;
+
+    public TcpFrameServer(int port) throws IOException {
+        server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptLoop, "sim-tcp-" + port);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket s = server.accept();
+                s.setTcpNoDelay(true);
+                dropClient();
+                clientOut = s.getOutputStream();
+                client = s;
+            } catch (IOException ex) {
+                // server closed
+            }
+        }
+    }
+
+    private void dropClient() {
+        Socket s = client;
+        client = null;
+        clientOut = null;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (server.isClosed()) throw new IOException("server closed");
+        OutputStream o = clientOut;
+        if (o == null) return;
+        try {
+            o.write(b, off, len);
+        } catch (IOException ex) {
+            dropClient(); // client went away, wait for the next one
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        dropClient();
+    }
+}
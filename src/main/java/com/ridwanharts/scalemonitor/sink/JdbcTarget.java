@@ -0,0 +1,141 @@
+package com.ridwanharts.scalemonitor.sink;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Inserts records into a table with one batched prepared statement per batch, committed
+ * as a single transaction:
+ * <pre>
+ * scale_id VARCHAR(64), ts TIMESTAMP, kind VARCHAR(16), mode VARCHAR(8), weight DECIMAL(18,6), unit VARCHAR(8)
+ * </pre>
+ * The connection is opened lazily and dropped after any SQL error, so the next retry
+ * reconnects. The JDBC driver must be on the class/module path.
+ *
+ * @author ridwan
+ */
+public class JdbcTarget implements SinkTarget {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final String table;
+    private final String insertSql;
+    private boolean createTable;
+    private Connection connection;
+    private PreparedStatement insert;
+
+    /**
+     * @param table plain or schema-qualified table name
+     */
+    public JdbcTarget(String url, String user, String password, String table) {
+        if (!table.matches("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?")) {
+            throw new IllegalArgumentException("Invalid table name: " + table);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.table = table;
+        this.insertSql = "INSERT INTO " + table + " (scale_id, ts, kind, mode, weight, unit) VALUES (?, ?, ?, ?, ?, ?)";
+    }
+
+    /**
+     * Create the table on connect when it does not exist yet (default off).
+     */
+    public void setCreateTable(boolean createTable) {
+        this.createTable = createTable;
+    }
+
+    @Override
+    public void write(List<SinkRecord> batch) throws IOException {
+        try {
+            if (connection == null) connect();
+            for (SinkRecord r : batch) {
+                insert.setString(1, r.getScaleId());
+                insert.setTimestamp(2, new Timestamp(r.getTimestampMillis()));
+                insert.setString(3, r.getKind());
+                if (r.getMode() != null) insert.setString(4, r.getMode()); else insert.setNull(4, Types.VARCHAR);
+                insert.setBigDecimal(5, BigDecimal.valueOf(r.getWeight(), r.getScale()));
+                insert.setString(6, r.getUnit());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            connection.commit();
+        } catch (SQLException ex) {
+            disconnect();
+            throw new IOException("JDBC insert into " + table + " failed: " + ex.getMessage(), ex);
+        }
+    }
+
+    private void connect() throws SQLException {
+        connection = DriverManager.getConnection(url, user, password);
+        try {
+            connection.setAutoCommit(false);
+            if (createTable && !tableExists()) {
+                try (Statement st = connection.createStatement()) {
+                    st.executeUpdate("CREATE TABLE " + table + " (scale_id VARCHAR(64), ts TIMESTAMP, kind VARCHAR(16),"
+                            + " mode VARCHAR(8), weight DECIMAL(18,6), unit VARCHAR(8))");
+                }
+                connection.commit();
+            }
+            insert = connection.prepareStatement(insertSql);
+        } catch (SQLException ex) {
+            disconnect();
+            throw ex;
+        }
+    }
+
+    private boolean tableExists() throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        int dot = table.indexOf('.');
+        String schema = dot < 0 ? null : table.substring(0, dot);
+        String name = dot < 0 ? table : table.substring(dot + 1);
+        // identifiers may be stored upper- or lower-case depending on the database
+        for (String candidate : new String[] {name, name.toUpperCase(Locale.ROOT), name.toLowerCase(Locale.ROOT)}) {
+            try (ResultSet rs = meta.getTables(null, schema, candidate, null)) {
+                if (rs.next()) return true;
+            }
+        }
+        return false;
+    }
+
+    private void disconnect() {
+        if (connection == null) return;
+        try {
+            connection.rollback();
+        } catch (SQLException ignored) {
+            // connection is probably gone already
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // nothing more to do
+        }
+        connection = null;
+        insert = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (connection == null) return;
+        try {
+            connection.close();
+        } catch (SQLException ex) {
+            throw new IOException(ex);
+        } finally {
+            connection = null;
+            insert = null;
+        }
+    }
+}
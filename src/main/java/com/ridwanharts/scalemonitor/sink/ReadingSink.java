@@ -0,0 +1,366 @@
+package com.ridwanharts.scalemonitor.sink;
+
+import com.ridwanharts.scalemonitor.filter.ScaleEvent;
+import com.ridwanharts.scalemonitor.filter.ScaleEventListener;
+import com.ridwanharts.scalemonitor.model.ReadingListener;
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.file.Path;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Persists readings and/or stability events without ever blocking the thread that
+ * reports them.
+ * <p>
+ * {@link #onReading} and {@link #onEvent} copy the data into a bounded queue and return;
+ * only when that queue is full are records dropped (and counted). A drainer thread cuts
+ * the queue into batches of {@code batchSize} records, or whatever arrived within
+ * {@code flushMillis}, and passes them to a writer thread that calls the
+ * {@link SinkTarget}. A failing target is retried with growing delays. While the writer is
+ * behind, batches go to a {@link SpillFile} in {@code spillDir} instead and are replayed in
+ * order once it catches up, so a slow database costs disk space rather than readings.
+ * A batch the target can never take (bad data: a value too long for its column, a constraint
+ * violation, an unencodable string) is not retried but moved to the dead-letter segments in
+ * {@code spillDir/dead-letter}, or counted as dropped without a spill directory.
+ * Delivery is at-least-once: a batch replayed when the process stopped mid-segment may be
+ * written twice.
+ *
+ * @author ridwan
+ */
+public class ReadingSink implements ReadingListener, ScaleEventListener, AutoCloseable {
+
+    private static final int HANDOFF_BATCHES = 4;
+    private static final long RETRY_MIN_MILLIS = 500;
+    private static final long RETRY_MAX_MILLIS = 30_000;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+    private static final long SPILL_SEGMENT_BYTES = 16L << 20;
+    static final String DEAD_LETTER_DIR = "dead-letter";
+
+    private final SinkTarget target;
+    private final SpillFile spill; // null = no spilling, the queue absorbs stalls
+    private final SpillFile deadLetters; // null with spill, poison batches are dropped
+    private final BlockingQueue<SinkRecord> queue;
+    private final BlockingQueue<List<SinkRecord>> handoff = new ArrayBlockingQueue<>(HANDOFF_BATCHES);
+    private final int batchSize;
+    private final long flushNanos;
+    private final Thread drainer;
+    private final Thread writer;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder poisoned = new LongAdder();
+    private volatile Exception lastError;
+    private volatile boolean writerIdle;
+    private volatile boolean closing;
+    private volatile boolean drained;
+    private volatile long closeDeadlineNanos;
+
+    /**
+     * @param spillDir where to park batches while the target is slow; null to drop instead
+     * @param queueCapacity records buffered in memory before dropping
+     */
+    public ReadingSink(SinkTarget target, Path spillDir, int queueCapacity, int batchSize, long flushMillis)
+            throws IOException {
+        this.target = target;
+        this.spill = (spillDir == null) ? null : new SpillFile(spillDir, SPILL_SEGMENT_BYTES);
+        this.deadLetters = (spillDir == null) ? null
+                : new SpillFile(spillDir.resolve(DEAD_LETTER_DIR), SPILL_SEGMENT_BYTES);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+
+        drainer = new Thread(this::drainLoop, "sink-drainer");
+        drainer.setDaemon(true);
+        writer = new Thread(this::writeLoop, "sink-writer");
+        writer.setDaemon(true);
+        drainer.start();
+        writer.start();
+    }
+
+    /**
+     * Queue a copy of {@code reading}; never blocks.
+     */
+    @Override
+    public void onReading(WeightReading reading) {
+        offer(SinkRecord.of(reading, reading.getTimestampMillis()));
+    }
+
+    /**
+     * Queue a copy of {@code event}; never blocks.
+     */
+    @Override
+    public void onEvent(ScaleEvent event) {
+        offer(SinkRecord.of(event, WeightReading.toEpochMillis(event.getTimestampNanos())));
+    }
+
+    private void offer(SinkRecord record) {
+        if (closing || !queue.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    private void drainLoop() {
+        List<SinkRecord> batch = new ArrayList<>(batchSize);
+        long due = 0;
+        try {
+            while (true) {
+                long wait = batch.isEmpty() ? flushNanos : due - System.nanoTime();
+                SinkRecord r = queue.poll(Math.max(wait, 0), TimeUnit.NANOSECONDS);
+                if (r != null) {
+                    if (batch.isEmpty()) due = System.nanoTime() + flushNanos;
+                    batch.add(r);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                boolean last = closing && queue.isEmpty();
+                if (!batch.isEmpty() && (batch.size() >= batchSize || System.nanoTime() - due >= 0 || last)) {
+                    dispatch(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+                if (spill != null && writerIdle && !spill.isEmpty()) {
+                    rollSpill(); // let the idle writer replay what has been parked so far
+                }
+                if (last) break;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (spill != null) rollSpill();
+            drained = true;
+        }
+    }
+
+    /**
+     * Hand {@code batch} to the writer, or park it on disk if the writer is busy or older
+     * batches are still parked.
+     */
+    private void dispatch(List<SinkRecord> batch) throws InterruptedException {
+        if (spill == null) {
+            while (!handoff.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                if (pastCloseDeadline()) {
+                    dropped.add(batch.size());
+                    return;
+                }
+            }
+        } else if (!spill.isEmpty() || !handoff.offer(batch)) {
+            spillOrDrop(batch);
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                List<SinkRecord> batch = handoff.poll();
+                if (batch == null) {
+                    Path segment = (spill == null) ? null : spill.oldest();
+                    if (segment != null && !pastCloseDeadline()) {
+                        replay(segment);
+                        continue;
+                    }
+                    if (drained && handoff.isEmpty()) break;
+                    writerIdle = true;
+                    batch = handoff.poll(flushNanos, TimeUnit.NANOSECONDS);
+                    writerIdle = false;
+                    if (batch == null) continue;
+                }
+                if (pastCloseDeadline() || !writeWithRetry(batch)) {
+                    spillOrDrop(batch);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void replay(Path segment) throws InterruptedException {
+        List<List<SinkRecord>> batches;
+        try {
+            batches = SpillFile.read(segment);
+        } catch (IOException ex) {
+            failed(ex);
+            TimeUnit.MILLISECONDS.sleep(RETRY_MIN_MILLIS);
+            return;
+        }
+        for (List<SinkRecord> batch : batches) {
+            if (pastCloseDeadline() || !writeWithRetry(batch)) {
+                return; // the segment stays on disk for the next run
+            }
+        }
+        try {
+            spill.remove(segment);
+        } catch (IOException ex) {
+            failed(ex);
+        }
+    }
+
+    /**
+     * @return false if the batch could not be written before {@link #close} gave up; a
+     *         poison batch counts as handled once it is dead-lettered
+     */
+    private boolean writeWithRetry(List<SinkRecord> batch) throws InterruptedException {
+        long delay = RETRY_MIN_MILLIS;
+        while (true) {
+            try {
+                target.write(batch);
+                written.add(batch.size());
+                return true;
+            } catch (IOException | RuntimeException ex) {
+                failed(ex);
+                if (isPermanent(ex)) {
+                    deadLetter(batch);
+                    return true;
+                }
+            }
+            if (closing) {
+                long left = TimeUnit.NANOSECONDS.toMillis(closeDeadlineNanos - System.nanoTime());
+                if (left <= 0) return false;
+                delay = Math.min(delay, left);
+            }
+            TimeUnit.MILLISECONDS.sleep(delay);
+            delay = Math.min(delay * 2, RETRY_MAX_MILLIS);
+        }
+    }
+
+    private void spillOrDrop(List<SinkRecord> batch) {
+        if (spill == null) {
+            dropped.add(batch.size());
+            return;
+        }
+        try {
+            spill.append(batch);
+            spilled.add(batch.size());
+        } catch (IOException ex) {
+            failed(ex);
+            dropped.add(batch.size());
+        }
+    }
+
+    private void deadLetter(List<SinkRecord> batch) {
+        poisoned.add(batch.size());
+        if (deadLetters == null) {
+            dropped.add(batch.size());
+            return;
+        }
+        try {
+            deadLetters.append(batch);
+        } catch (IOException ex) {
+            failed(ex);
+            dropped.add(batch.size());
+        }
+    }
+
+    /**
+     * True if retrying cannot help because the data itself is rejected. Lost connections,
+     * missing tables or full disks are not, they fail every batch until someone fixes them.
+     */
+    static boolean isPermanent(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof CharacterCodingException) return true;
+            if (t instanceof SQLException) {
+                for (SQLException e = (SQLException) t; e != null; e = e.getNextException()) {
+                    String state = e.getSQLState();
+                    if (e instanceof SQLDataException || e instanceof SQLIntegrityConstraintViolationException
+                            || (state != null && (state.startsWith("22") || state.startsWith("23")))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void rollSpill() {
+        try {
+            spill.roll();
+        } catch (IOException ex) {
+            failed(ex);
+        }
+    }
+
+    private void failed(Exception ex) {
+        failures.increment();
+        lastError = ex;
+    }
+
+    private boolean pastCloseDeadline() {
+        return closing && System.nanoTime() - closeDeadlineNanos >= 0;
+    }
+
+    /**
+     * Records lost because the queue was full (or, without a spill directory, because the
+     * target was still failing at close or rejected them for good).
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Records parked on disk because the target was behind.
+     */
+    public long getSpilledCount() {
+        return spilled.sum();
+    }
+
+    /**
+     * Records stored by the target, including replayed ones.
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    /**
+     * Records the target rejected for good and moved to the dead-letter segments (or, without
+     * a spill directory, dropped).
+     */
+    public long getPoisonedCount() {
+        return poisoned.sum();
+    }
+
+    /**
+     * Failed target writes and spill I/O errors.
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    public Exception getLastError() {
+        return lastError;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Stop accepting records, flush what is queued and give the target up to five seconds
+     * to take it; anything left is kept in the spill directory for the next run.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closing) return;
+        closeDeadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MILLIS);
+        closing = true;
+        try {
+            drainer.join(CLOSE_TIMEOUT_MILLIS + 1000);
+            writer.join(CLOSE_TIMEOUT_MILLIS + 1000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (spill != null) spill.close();
+            if (deadLetters != null) deadLetters.close();
+        } finally {
+            target.close();
+        }
+    }
+}
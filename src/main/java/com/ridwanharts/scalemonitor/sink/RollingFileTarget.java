@@ -0,0 +1,192 @@
+package com.ridwanharts.scalemonitor.sink;
+
+import com.ridwanharts.scalemonitor.util.Json;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Appends records to {@code <name>-000001.csv} (or {@code .ndjson}) files in a directory,
+ * starting a new file once the current one passes the size limit. Each batch is encoded
+ * into one reused char buffer and written through a direct byte buffer in as few
+ * channel writes as possible. A batch that fails halfway is cut off again, so the retry
+ * does not append after a torn line. New files continue the sequence of existing ones.
+ * <pre>
+ * CSV:    scale,time,kind,mode,weight,unit
+ *         A,2024-05-01T08:00:00.125Z,STABLE,,4.139,kg
+ * NDJSON: {"scale":"A","time":"2024-05-01T08:00:00.125Z","kind":"STABLE","weight":4.139,"unit":"kg"}
+ * </pre>
+ *
+ * @author ridwan
+ */
+public class RollingFileTarget implements SinkTarget {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final String CSV_HEADER = "scale,time,kind,mode,weight,unit\n";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path dir;
+    private final String name;
+    private final Format format;
+    private final long maxFileBytes;
+    private final StringBuilder text = new StringBuilder(BUFFER_SIZE);
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private FileChannel channel;
+    private long fileBytes;
+    private int sequence;
+
+    public RollingFileTarget(Path dir, String name, Format format, long maxFileBytes) throws IOException {
+        this.dir = dir;
+        this.name = name;
+        this.format = format;
+        this.maxFileBytes = maxFileBytes;
+        Files.createDirectories(dir);
+        sequence = lastSequence();
+    }
+
+    @Override
+    public void write(List<SinkRecord> batch) throws IOException {
+        if (channel == null || fileBytes >= maxFileBytes) {
+            roll();
+        }
+        text.setLength(0);
+        for (SinkRecord r : batch) {
+            if (format == Format.CSV) appendCsv(r); else appendJson(r);
+        }
+        long before = fileBytes;
+        try {
+            fileBytes += encodeAndWrite(text);
+            channel.force(false);
+        } catch (IOException | RuntimeException ex) {
+            truncate(before, ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Drop what a failed write left behind; if even that fails, leave the torn file and
+     * start a new one with the next batch.
+     */
+    private void truncate(long size, Exception failure) {
+        try {
+            channel.truncate(size);
+            fileBytes = size;
+        } catch (IOException ex) {
+            failure.addSuppressed(ex);
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already failing
+            }
+            channel = null;
+        }
+    }
+
+    private void roll() throws IOException {
+        if (channel != null) channel.close();
+        Path file = dir.resolve(String.format("%s-%06d.%s", name, ++sequence, extension()));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        fileBytes = channel.size();
+        if (fileBytes == 0 && format == Format.CSV) {
+            fileBytes += encodeAndWrite(CSV_HEADER);
+        }
+    }
+
+    private long encodeAndWrite(CharSequence chars) throws IOException {
+        CharBuffer in = CharBuffer.wrap(chars);
+        long written = 0;
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(in, bytes, true);
+            if (result.isError()) result.throwException();
+            written += drain();
+            if (result.isUnderflow()) break;
+        }
+        encoder.flush(bytes);
+        written += drain();
+        return written;
+    }
+
+    private long drain() throws IOException {
+        bytes.flip();
+        long n = bytes.remaining();
+        while (bytes.hasRemaining()) channel.write(bytes);
+        bytes.clear();
+        return n;
+    }
+
+    private void appendCsv(SinkRecord r) {
+        appendCsvField(r.getScaleId()).append(',');
+        text.append(Instant.ofEpochMilli(r.getTimestampMillis())).append(',');
+        text.append(r.getKind()).append(',');
+        if (r.getMode() != null) text.append(r.getMode());
+        text.append(',');
+        r.appendWeight(text);
+        text.append(',');
+        appendCsvField(r.getUnit()).append('\n');
+    }
+
+    private StringBuilder appendCsvField(String value) {
+        if (value == null) return text;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return text.append(value);
+        }
+        return text.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private void appendJson(SinkRecord r) {
+        text.append("{\"scale\":");
+        Json.appendString(text, r.getScaleId());
+        text.append(",\"time\":\"").append(Instant.ofEpochMilli(r.getTimestampMillis()))
+                .append("\",\"kind\":\"").append(r.getKind()).append('"');
+        if (r.getMode() != null) text.append(",\"mode\":\"").append(r.getMode()).append('"');
+        text.append(",\"weight\":");
+        r.appendWeight(text);
+        text.append(",\"unit\":");
+        Json.appendString(text, r.getUnit());
+        text.append("}\n");
+    }
+
+    private String extension() {
+        return format == Format.CSV ? "csv" : "ndjson";
+    }
+
+    private int lastSequence() throws IOException {
+        String prefix = name + "-";
+        String suffix = "." + extension();
+        int last = 0;
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String f = p.getFileName().toString();
+                if (f.startsWith(prefix) && f.endsWith(suffix)) {
+                    try {
+                        last = Math.max(last, Integer.parseInt(f.substring(prefix.length(), f.length() - suffix.length())));
+                    } catch (NumberFormatException ignored) {
+                        // not one of ours
+                    }
+                }
+            }
+        }
+        return last;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
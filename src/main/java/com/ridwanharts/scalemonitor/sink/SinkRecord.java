@@ -0,0 +1,81 @@
+package com.ridwanharts.scalemonitor.sink;
+
+import com.ridwanharts.scalemonitor.filter.ScaleEvent;
+import com.ridwanharts.scalemonitor.model.WeightReading;
+
+/**
+ * One row handed to a {@link SinkTarget}: an immutable copy of a reading or a stability
+ * event, with a wall-clock timestamp.
+ *
+ * @author ridwan
+ */
+public final class SinkRecord {
+
+    private final String scaleId;
+    private final long timestampMillis;
+    private final String kind;
+    private final String mode;
+    private final long weight;
+    private final int scale;
+    private final String unit;
+
+    /**
+     * @param kind event type (STABLE, ZERO, ...) or reading status (OK, OVERLOAD, UNDERLOAD)
+     * @param mode GROSS / NET for readings, null for events
+     */
+    public SinkRecord(String scaleId, long timestampMillis, String kind, String mode,
+                      long weight, int scale, String unit) {
+        this.scaleId = scaleId;
+        this.timestampMillis = timestampMillis;
+        this.kind = kind;
+        this.mode = mode;
+        this.weight = weight;
+        this.scale = scale;
+        this.unit = unit;
+    }
+
+    static SinkRecord of(WeightReading r, long timestampMillis) {
+        return new SinkRecord(r.getScaleId(), timestampMillis, r.getStatus().name(), r.getMode().name(),
+                r.getWeight(), r.getScale(), r.getUnit());
+    }
+
+    static SinkRecord of(ScaleEvent e, long timestampMillis) {
+        return new SinkRecord(e.getScaleId(), timestampMillis, e.getType().name(), null,
+                e.getWeight(), e.getScale(), e.getUnit());
+    }
+
+    public String getScaleId() {
+        return scaleId;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * Fixed-point weight, {@code weight / 10^scale}.
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public void appendWeight(StringBuilder out) {
+        WeightReading.appendDecimal(out, weight, scale);
+    }
+}
@@ -0,0 +1,19 @@
+package com.ridwanharts.scalemonitor.sink;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of persisted records. Called from the single writer thread of a
+ * {@link ReadingSink}, one batch at a time; a failed batch is retried later, so
+ * {@link #write} should either store the whole batch or throw.
+ *
+ * @author ridwan
+ */
+public interface SinkTarget extends AutoCloseable {
+
+    void write(List<SinkRecord> batch) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
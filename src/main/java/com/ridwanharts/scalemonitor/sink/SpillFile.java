@@ -0,0 +1,168 @@
+package com.ridwanharts.scalemonitor.sink;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Disk overflow of a {@link ReadingSink}: batches the target could not take in time are
+ * appended to {@code spill-000001.bin}, {@code spill-000002.bin}, ... and read back, oldest
+ * segment first, once the target catches up. Segments left over from a previous run are
+ * picked up again. Each batch is stored as a record count followed by the records.
+ *
+ * @author ridwan
+ */
+final class SpillFile {
+
+    private static final String PREFIX = "spill-";
+    private static final String SUFFIX = ".bin";
+
+    private final Path dir;
+    private final long maxSegmentBytes;
+    private final Deque<Path> closed = new ArrayDeque<>(); // ready for replay, oldest first
+    private DataOutputStream out;
+    private Path current;
+    private int sequence;
+
+    SpillFile(Path dir, long maxSegmentBytes) throws IOException {
+        this.dir = dir;
+        this.maxSegmentBytes = maxSegmentBytes;
+        Files.createDirectories(dir);
+        List<Integer> found = new ArrayList<>();
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                int seq = sequenceOf(p);
+                if (seq > 0) found.add(seq);
+            }
+        }
+        found.sort(null);
+        for (int seq : found) {
+            closed.add(segment(seq));
+            sequence = seq;
+        }
+    }
+
+    /**
+     * True when nothing is waiting on disk, not even a segment being replayed.
+     */
+    synchronized boolean isEmpty() {
+        return out == null && closed.isEmpty();
+    }
+
+    synchronized void append(List<SinkRecord> batch) throws IOException {
+        if (out == null) {
+            current = segment(++sequence);
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(current), 64 * 1024));
+        }
+        out.writeInt(batch.size());
+        for (SinkRecord r : batch) {
+            writeNullable(r.getScaleId());
+            out.writeLong(r.getTimestampMillis());
+            out.writeUTF(r.getKind());
+            writeNullable(r.getMode());
+            out.writeLong(r.getWeight());
+            out.writeByte(r.getScale());
+            writeNullable(r.getUnit());
+        }
+        out.flush();
+        if (out.size() >= maxSegmentBytes) roll();
+    }
+
+    /**
+     * Close the segment being appended to so it can be replayed.
+     */
+    synchronized void roll() throws IOException {
+        if (out == null) return;
+        try {
+            out.close();
+        } finally {
+            out = null;
+            closed.add(current);
+        }
+    }
+
+    /**
+     * Oldest closed segment, or null if there is none.
+     */
+    synchronized Path oldest() {
+        return closed.peekFirst();
+    }
+
+    /**
+     * Delete {@code segment} after it has been replayed.
+     */
+    synchronized void remove(Path segment) throws IOException {
+        closed.remove(segment);
+        Files.deleteIfExists(segment);
+    }
+
+    /**
+     * Read the batches of a closed segment. A batch cut short by a crash ends the segment.
+     */
+    static List<List<SinkRecord>> read(Path segment) throws IOException {
+        List<List<SinkRecord>> batches = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 64 * 1024))) {
+            while (true) {
+                int n;
+                try {
+                    n = in.readInt();
+                } catch (EOFException end) {
+                    break;
+                }
+                List<SinkRecord> batch = new ArrayList<>(n);
+                try {
+                    for (int i = 0; i < n; i++) {
+                        String scaleId = readNullable(in);
+                        long time = in.readLong();
+                        String kind = in.readUTF();
+                        String mode = readNullable(in);
+                        long weight = in.readLong();
+                        int scale = in.readByte();
+                        String unit = readNullable(in);
+                        batch.add(new SinkRecord(scaleId, time, kind, mode, weight, scale, unit));
+                    }
+                } catch (EOFException truncated) {
+                    break;
+                }
+                batches.add(batch);
+            }
+        }
+        return batches;
+    }
+
+    synchronized void close() throws IOException {
+        roll();
+    }
+
+    private void writeNullable(String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private Path segment(int seq) {
+        return dir.resolve(String.format("%s%06d%s", PREFIX, seq, SUFFIX));
+    }
+
+    private static int sequenceOf(Path p) {
+        String f = p.getFileName().toString();
+        if (!f.startsWith(PREFIX) || !f.endsWith(SUFFIX)) return -1;
+        try {
+            return Integer.parseInt(f.substring(PREFIX.length(), f.length() - SUFFIX.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.ridwanharts.scalemonitor.transport;
+
+import java.io.IOException;
+
+/**
+ * A bidirectional byte link to a scale: a serial port, a serial-to-Ethernet converter,
+ * or an in-memory pipe for tests and benchmarks.
+ * <p>
+ * Received bytes are pushed to the {@link DataHandler} given to {@link #open(DataHandler)}
+ * on a thread owned by the transport. The buffer slice handed to the handler is only
+ * valid during the call.
+ *
+ * @author ridwan
+ */
+public interface ByteTransport {
+
+    /**
+     * Callback for bytes received from the device.
+     */
+    interface DataHandler {
+
+        void onData(byte[] buffer, int off, int len);
+
+        void onError(String message);
+
+        /**
+         * The link went away on its own (cable pulled, peer closed the connection), as
+         * opposed to {@link ByteTransport#close()}. The transport may be opened again.
+         */
+        default void onDisconnected(String reason) {
+            onError(reason);
+        }
+    }
+
+    /**
+     * Human readable name, e.g. "COM3" or "tcp://10.0.0.5:4001".
+     */
+    String getName();
+
+    /**
+     * Open the link and start delivering received bytes to {@code handler}.
+     * @return false if the link could not be opened
+     */
+    boolean open(DataHandler handler);
+
+    boolean isOpen();
+
+    /**
+     * Write all {@code len} bytes to the device, or fail.
+     * @return number of bytes written, always {@code len}
+     * @throws IOException if the link is closed or not everything could be written
+     */
+    int write(byte[] data, int off, int len) throws IOException;
+
+    /**
+     * Close the link. Safe to call more than once.
+     */
+    void close();
+}
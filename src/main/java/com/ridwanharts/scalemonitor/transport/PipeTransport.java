@@ -0,0 +1,91 @@
+package com.ridwanharts.scalemonitor.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * In-memory {@link ByteTransport}. Whatever the "device" side pushes with
+ * {@link #deliver(byte[], int, int)} (or through {@link #deviceOutput()}) reaches the
+ * data handler synchronously on the calling thread, so a pipeline can be driven at full
+ * speed without hardware. Bytes written by the host go to an optional write handler.
+ *
+ * @author ridwan
+ */
+public class PipeTransport implements ByteTransport {
+
+    private final String name;
+    private volatile DataHandler handler;
+    private volatile DataHandler writeHandler;
+
+    public PipeTransport(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean open(DataHandler handler) {
+        this.handler = handler;
+        return true;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return handler != null;
+    }
+
+    /**
+     * Device side: push received bytes to the host. Dropped while the pipe is closed.
+     */
+    public void deliver(byte[] data, int off, int len) {
+        DataHandler h = handler;
+        if (h != null && len > 0) {
+            h.onData(data, off, len);
+        }
+    }
+
+    /**
+     * Device side as a stream, e.g. for a simulator writing frames.
+     */
+    public OutputStream deviceOutput() {
+        return new OutputStream() {
+            private final byte[] one = new byte[1];
+
+            @Override
+            public void write(int b) {
+                one[0] = (byte) b;
+                deliver(one, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                deliver(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * Receive what the host writes (commands etc.); null discards it.
+     */
+    public void setWriteHandler(DataHandler writeHandler) {
+        this.writeHandler = writeHandler;
+    }
+
+    @Override
+    public int write(byte[] data, int off, int len) throws IOException {
+        if (handler == null) throw new IOException(name + " is not open");
+        DataHandler w = writeHandler;
+        if (w != null) {
+            w.onData(data, off, len);
+        }
+        return len;
+    }
+
+    @Override
+    public void close() {
+        handler = null;
+    }
+}
@@ -0,0 +1,122 @@
+package com.ridwanharts.scalemonitor.transport;
+
+import com.fazecast.jSerialComm.SerialPort;
+import com.fazecast.jSerialComm.SerialPortDataListener;
+import com.fazecast.jSerialComm.SerialPortEvent;
+import java.io.IOException;
+
+/**
+ * {@link ByteTransport} backed by a jSerialComm port (8N1, event driven reads).
+ * <p>
+ * Each open session reads into one reused buffer; bursts larger than the buffer are
+ * delivered as several slices, so steady-state reception allocates nothing per event.
+ *
+ * @author ridwan
+ */
+public class SerialPortTransport implements ByteTransport {
+
+    private static final int DEFAULT_READ_BUFFER_SIZE = 4096;
+    private static final int WRITE_TIMEOUT_MILLIS = 2000;
+
+    private final String portName;
+    private final int baudRate;
+    private final int readBufferSize;
+    private volatile SerialPort port; // swapped by open/close, read on event and writer threads
+
+    public SerialPortTransport(String portName, int baudRate) {
+        this(portName, baudRate, DEFAULT_READ_BUFFER_SIZE);
+    }
+
+    /**
+     * @param readBufferSize size of the per-session read buffer, i.e. the largest slice
+     *                       handed to the data handler at once
+     */
+    public SerialPortTransport(String portName, int baudRate, int readBufferSize) {
+        this.portName = portName;
+        this.baudRate = baudRate;
+        this.readBufferSize = readBufferSize;
+    }
+
+    @Override
+    public String getName() {
+        return portName;
+    }
+
+    @Override
+    public boolean open(DataHandler handler) {
+        SerialPort p = SerialPort.getCommPort(portName);
+        p.setBaudRate(baudRate);
+        p.setNumDataBits(8);
+        p.setNumStopBits(SerialPort.ONE_STOP_BIT);
+        p.setParity(SerialPort.NO_PARITY);
+
+        // Use event-driven reads (no read timeout dependency); writes block until sent
+        p.setComPortTimeouts(SerialPort.TIMEOUT_NONBLOCKING | SerialPort.TIMEOUT_WRITE_BLOCKING,
+                0, WRITE_TIMEOUT_MILLIS);
+
+        if (!p.openPort()) {
+            return false;
+        }
+        port = p;
+
+        byte[] buffer = new byte[readBufferSize]; // reused for every event of this session
+        p.addDataListener(new SerialPortDataListener() {
+            @Override
+            public int getListeningEvents() {
+                return SerialPort.LISTENING_EVENT_DATA_AVAILABLE | SerialPort.LISTENING_EVENT_PORT_DISCONNECTED;
+            }
+
+            @Override
+            public void serialEvent(SerialPortEvent event) {
+                if (event.getEventType() == SerialPort.LISTENING_EVENT_PORT_DISCONNECTED) {
+                    if (port == p) handler.onDisconnected(portName + " disconnected");
+                    return;
+                }
+                if (event.getEventType() != SerialPort.LISTENING_EVENT_DATA_AVAILABLE) return;
+                try {
+                    int available = p.bytesAvailable();
+                    while (available > 0) {
+                        int read = p.readBytes(buffer, Math.min(available, buffer.length));
+                        if (read <= 0) break;
+                        handler.onData(buffer, 0, read);
+                        available -= read;
+                    }
+                } catch (Exception ex) {
+                    handler.onError(ex.getMessage());
+                }
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean isOpen() {
+        SerialPort p = port;
+        return p != null && p.isOpen();
+    }
+
+    @Override
+    public int write(byte[] data, int off, int len) throws IOException {
+        SerialPort p = port;
+        if (p == null || !p.isOpen()) throw new IOException(portName + " is not open");
+        int written = p.writeBytes(data, len, off);
+        if (written < 0) throw new IOException("write to " + portName + " failed");
+        if (written < len) {
+            throw new IOException("write to " + portName + " timed out after " + written + " of " + len + " bytes");
+        }
+        return written;
+    }
+
+    @Override
+    public void close() {
+        SerialPort p = port;
+        port = null;
+        if (p == null) return;
+        try {
+            p.removeDataListener();
+            if (p.isOpen()) {
+                p.closePort();
+            }
+        } catch (Exception ignored) {}
+    }
+}
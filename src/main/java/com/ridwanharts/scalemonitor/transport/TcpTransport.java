@@ -0,0 +1,108 @@
+package com.ridwanharts.scalemonitor.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * {@link ByteTransport} over a TCP connection, for scales behind a serial-to-Ethernet
+ * converter (raw TCP server mode) or a local simulator. A daemon thread reads the socket
+ * and hands the bytes to the data handler.
+ *
+ * @author ridwan
+ */
+public class TcpTransport implements ByteTransport {
+
+    private static final int CONNECT_TIMEOUT_MS = 3000;
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    private final String host;
+    private final int port;
+    private volatile Socket socket;
+    private Thread reader;
+
+    public TcpTransport(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    public String getName() {
+        return "tcp://" + host + ":" + port;
+    }
+
+    @Override
+    public boolean open(DataHandler handler) {
+        Socket s = new Socket();
+        try {
+            s.setTcpNoDelay(true);
+            s.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+        } catch (IOException ex) {
+            try {
+                s.close();
+            } catch (IOException ignored) {}
+            return false;
+        }
+        socket = s;
+
+        reader = new Thread(() -> readLoop(s, handler), "tcp-reader-" + host + ":" + port);
+        reader.setDaemon(true);
+        reader.start();
+        return true;
+    }
+
+    private void readLoop(Socket s, DataHandler handler) {
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        try {
+            InputStream in = s.getInputStream();
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                if (read > 0) {
+                    handler.onData(buffer, 0, read);
+                }
+            }
+            if (socket == s) handler.onDisconnected("connection closed by " + getName());
+        } catch (IOException ex) {
+            // a socket closed by close() is not an error
+            if (socket == s) handler.onDisconnected(ex.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        Socket s = socket;
+        return s != null && s.isConnected() && !s.isClosed();
+    }
+
+    @Override
+    public int write(byte[] data, int off, int len) throws IOException {
+        Socket s = socket;
+        if (s == null) throw new IOException(getName() + " is not open");
+        OutputStream out = s.getOutputStream();
+        out.write(data, off, len);
+        out.flush();
+        return len;
+    }
+
+    @Override
+    public void close() {
+        Socket s = socket;
+        socket = null;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException ignored) {}
+        }
+        Thread t = reader;
+        reader = null;
+        if (t != null && t != Thread.currentThread()) {
+            try {
+                t.join(1000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.ridwanharts.scalemonitor.util;
+
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Decodes a large region of 15-byte frames (a capture file, a replay buffer) in one call,
+ * into {@link FrameColumns} instead of callbacks.
+ * <p>
+ * Frames are found exactly as {@link ScaleFrameParser} finds them: a frame starts where
+ * CR LF sit at offsets 13/14, otherwise one byte is skipped. Instead of testing one offset
+ * at a time, garbage is skipped by searching for the next CR eight bytes per step with a
+ * SWAR (SIMD within a register) zero-byte test on little-endian long reads. Feeding a
+ * stream through {@link #decode} region by region, carrying over the unconsumed tail,
+ * gives the same frames and resync counts as {@link ScaleFrameParser#feedReadings}.
+ *
+ * @author ridwan
+ */
+public final class BulkFrameDecoder {
+
+    /** Weight frame with a good checksum whose weight field is not a number. */
+    public static final int FRAME_INVALID_WEIGHT = 5;
+    static final int FRAME_CLASSES = 6;
+
+    private static final int FRAME_LENGTH = ScaleFrameParser.FRAME_LENGTH;
+    private static final byte CR = 0x0D;
+    private static final byte LF = 0x0A;
+
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+    private static final long CRS = ONES * CR;
+
+    private BulkFrameDecoder() {
+    }
+
+    /**
+     * Decode the frames in {@code buf[off .. off+len)} into {@code out} until the region or
+     * the columns run out.
+     * <p>
+     * Bytes that may still belong to a frame completed by later data are not consumed:
+     * prepend {@code buf[off+consumed .. off+len)} to the next region, or drop them at the
+     * end of the stream.
+     *
+     * @return number of bytes consumed from {@code off}
+     */
+    public static int decode(byte[] buf, int off, int len, FrameColumns out) {
+        WeightReading scratch = new WeightReading();
+        int end = off + len;
+        int p = off;
+        while (end - p >= FRAME_LENGTH && !out.isFull()) {
+            if (buf[p + 13] == CR && buf[p + 14] == LF) {
+                emit(buf, p, out, scratch);
+                p += FRAME_LENGTH;
+                continue;
+            }
+            // the next frame start q > p needs its CR at q + 13 >= p + 14
+            int next = nextFrameStart(buf, p + 14, end);
+            int skipTo = (next >= 0) ? next : end - (FRAME_LENGTH - 1);
+            out.addResyncBytes(skipTo - p);
+            p = skipTo;
+        }
+        return p - off;
+    }
+
+    /**
+     * Start of the first frame whose CR is at or after {@code from} and whose LF is before
+     * {@code end}, or -1. The caller guarantees {@code from >= 13}.
+     */
+    public static int nextFrameStart(byte[] buf, int from, int end) {
+        int j = from;
+        int last = end - 1; // the LF must fit in the region
+        while (j < last) {
+            if (last - j >= Long.BYTES) {
+                long x = (long) LONG_LE.get(buf, j) ^ CRS;
+                long found = (x - ONES) & ~x & HIGHS; // lowest flagged byte is the first CR
+                if (found == 0) {
+                    j += Long.BYTES;
+                    continue;
+                }
+                j += Long.numberOfTrailingZeros(found) >>> 3;
+            } else if (buf[j] != CR) {
+                j++;
+                continue;
+            }
+            if (buf[j + 1] == LF) return j - 13;
+            j++;
+        }
+        return -1;
+    }
+
+    private static void emit(byte[] f, int off, FrameColumns out, WeightReading scratch) {
+        int frameClass = ScaleFrameParser.classify(f, off);
+        if (frameClass != ScaleFrameParser.FRAME_WEIGHT) {
+            out.add(off, frameClass, (byte) 0, 0, 0, null);
+        } else if (ScaleFrameParser.decodeWeight(f, off, scratch, 0)) {
+            out.add(off, frameClass, f[off + 1], scratch.getWeight(), scratch.getScale(), scratch.getUnit());
+        } else {
+            out.add(off, FRAME_INVALID_WEIGHT, f[off + 1], 0, 0, null);
+        }
+    }
+}
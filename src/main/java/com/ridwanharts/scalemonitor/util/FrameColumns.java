@@ -0,0 +1,119 @@
+package com.ridwanharts.scalemonitor.util;
+
+/**
+ * Column-oriented output of {@link BulkFrameDecoder}: one slot per frame in parallel
+ * primitive arrays, so a million frames cost a handful of arrays instead of a million
+ * objects. The arrays are returned as-is; slots {@code 0 .. size()-1} are valid.
+ *
+ * @author ridwan
+ */
+public final class FrameColumns {
+
+    private final int[] offsets;
+    private final byte[] classes;
+    private final byte[] modes;
+    private final long[] weights;
+    private final byte[] scales;
+    private final String[] units;
+    private final long[] classCounts = new long[BulkFrameDecoder.FRAME_CLASSES];
+    private int size;
+    private long resyncBytes;
+
+    public FrameColumns(int capacity) {
+        offsets = new int[capacity];
+        classes = new byte[capacity];
+        modes = new byte[capacity];
+        weights = new long[capacity];
+        scales = new byte[capacity];
+        units = new String[capacity];
+    }
+
+    void add(int offset, int frameClass, byte mode, long weight, int scale, String unit) {
+        offsets[size] = offset;
+        classes[size] = (byte) frameClass;
+        modes[size] = mode;
+        weights[size] = weight;
+        scales[size] = (byte) scale;
+        units[size] = unit;
+        size++;
+        classCounts[frameClass]++;
+    }
+
+    void addResyncBytes(long n) {
+        resyncBytes += n;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return offsets.length;
+    }
+
+    public boolean isFull() {
+        return size == offsets.length;
+    }
+
+    /**
+     * Forget the frames but keep the running totals of {@link #getCount} and
+     * {@link #getResyncBytes}.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Start offset of each frame in the decoded region.
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * One of the {@code FRAME_*} constants of {@link ScaleFrameParser} or
+     * {@link BulkFrameDecoder#FRAME_INVALID_WEIGHT}.
+     */
+    public byte[] getClasses() {
+        return classes;
+    }
+
+    /**
+     * Raw mode byte of weight frames ('G', 'N', ...), 0 for the other classes.
+     */
+    public byte[] getModes() {
+        return modes;
+    }
+
+    /**
+     * Fixed-point weight, {@code weight / 10^scale}; 0 unless the class is FRAME_WEIGHT.
+     */
+    public long[] getWeights() {
+        return weights;
+    }
+
+    public byte[] getScales() {
+        return scales;
+    }
+
+    /**
+     * Shared unit constants ("kg", "lb", ...) for weight frames, null otherwise.
+     */
+    public String[] getUnits() {
+        return units;
+    }
+
+    /**
+     * Frames of {@code frameClass} decoded since this instance was created.
+     */
+    public long getCount(int frameClass) {
+        return classCounts[frameClass];
+    }
+
+    /**
+     * Bytes skipped while looking for frame boundaries since this instance was created.
+     */
+    public long getResyncBytes() {
+        return resyncBytes;
+    }
+}
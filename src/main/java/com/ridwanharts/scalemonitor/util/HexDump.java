@@ -0,0 +1,107 @@
+package com.ridwanharts.scalemonitor.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Table-driven hex encoder for RAW_DEBUG output.
+ * <p>
+ * Lines are built in one reused char buffer (no Formatter, no per-byte Strings) and a
+ * burst is split into lines of at most {@code bytesPerLine} bytes. Two layouts:
+ * <pre>
+ * compact: [RAW HEX] 57 47 30 30 34 2E 31 33 39 6B 67 33 35 0D 0A
+ * classic: [RAW HEX] 00000000  57 47 30 30 34 2E 31 33  39 6B 67 33 35 0D 0A 41 |WG004.139kg35..A|
+ * </pre>
+ * The offset in the classic layout counts bytes since the last {@link #reset()}.
+ * An instance is not thread-safe.
+ *
+ * @author ridwan
+ */
+public final class HexDump {
+
+    private static final char[] DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final String prefix;
+    private final boolean classic;
+    private final int bytesPerLine;
+    private final char[] line;
+    private long offset;
+
+    /**
+     * @param prefix text put in front of every line, e.g. "[RAW HEX] "
+     * @param classic offset / hex / ASCII columns instead of plain hex bytes
+     * @param bytesPerLine maximum bytes per emitted line
+     */
+    public HexDump(String prefix, boolean classic, int bytesPerLine) {
+        if (bytesPerLine <= 0) throw new IllegalArgumentException("bytesPerLine must be positive");
+        this.prefix = prefix;
+        this.classic = classic;
+        this.bytesPerLine = bytesPerLine;
+        // prefix + offset(8) + 2 + 3 per byte + group gaps + " |" + ascii + "|"
+        this.line = new char[prefix.length() + 12 + bytesPerLine * 4 + bytesPerLine / 8 + 2];
+    }
+
+    /**
+     * Emit {@code buf[off..off+len)} as one or more lines.
+     */
+    public void dump(byte[] buf, int off, int len, Consumer<String> out) {
+        int end = off + len;
+        for (int start = off; start < end; start += bytesPerLine) {
+            int n = Math.min(bytesPerLine, end - start);
+            int pos = classic ? classicLine(buf, start, n) : compactLine(buf, start, n);
+            offset += n;
+            out.accept(new String(line, 0, pos));
+        }
+    }
+
+    /**
+     * Restart the classic offset column at zero.
+     */
+    public void reset() {
+        offset = 0;
+    }
+
+    private int compactLine(byte[] buf, int start, int n) {
+        int pos = putPrefix();
+        for (int i = start; i < start + n; i++) {
+            pos = putByte(buf[i], pos);
+            line[pos++] = ' ';
+        }
+        return pos;
+    }
+
+    private int classicLine(byte[] buf, int start, int n) {
+        int pos = putPrefix();
+        for (int shift = 28; shift >= 0; shift -= 4) {
+            line[pos++] = DIGITS[(int) (offset >>> shift) & 0x0F];
+        }
+        line[pos++] = ' ';
+        for (int i = 0; i < bytesPerLine; i++) {
+            if (i % 8 == 0) line[pos++] = ' ';
+            if (i < n) {
+                pos = putByte(buf[start + i], pos);
+            } else {
+                line[pos++] = ' ';
+                line[pos++] = ' ';
+            }
+            line[pos++] = ' ';
+        }
+        line[pos++] = '|';
+        for (int i = start; i < start + n; i++) {
+            int c = buf[i] & 0xFF;
+            line[pos++] = (c >= 0x20 && c < 0x7F) ? (char) c : '.';
+        }
+        line[pos++] = '|';
+        return pos;
+    }
+
+    private int putPrefix() {
+        prefix.getChars(0, prefix.length(), line, 0);
+        return prefix.length();
+    }
+
+    private int putByte(byte b, int pos) {
+        line[pos++] = DIGITS[(b >> 4) & 0x0F];
+        line[pos++] = DIGITS[b & 0x0F];
+        return pos;
+    }
+}
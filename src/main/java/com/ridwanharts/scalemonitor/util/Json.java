@@ -0,0 +1,37 @@
+package com.ridwanharts.scalemonitor.util;
+
+/**
+ * The bit of JSON writing the HTTP feed and the NDJSON sink share: quoting strings
+ * straight into a StringBuilder, without a Formatter for control characters.
+ *
+ * @author ridwan
+ */
+public final class Json {
+
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    private Json() {
+    }
+
+    /**
+     * Append {@code s} as a quoted, escaped JSON string, or {@code null}.
+     */
+    public static void appendString(StringBuilder sb, String s) {
+        if (s == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append("\\u00").append(DIGITS[c >> 4]).append(DIGITS[c & 0xF]);
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,67 @@
+package com.ridwanharts.scalemonitor.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds 15-byte frames of the protocol read by {@link ScaleFrameParser}: the simulator
+ * and the benchmarks produce their byte streams with it.
+ *
+ * @author ridwan
+ */
+public final class ScaleFrameEncoder {
+
+    private ScaleFrameEncoder() {
+    }
+
+    /**
+     * Normal weighing frame: 'W', mode ('G' gross / 'N' net), 7-char weight, "kg".
+     * @param weight7 ASCII weight, e.g. "004.139" or "-04.139"; only the first 7 chars are used
+     */
+    public static void weight(byte[] frame, int off, char mode, String weight7) {
+        frame[off] = (byte) 'W';
+        frame[off + 1] = (byte) mode;
+        byte[] ws = weight7.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(ws, 0, frame, off + 2, 7); // bytes 3..9
+        frame[off + 9] = (byte) 'k';
+        frame[off + 10] = (byte) 'g';
+        trailer(frame, off);
+    }
+
+    /**
+     * Overload frame: 9 spaces then "OL".
+     */
+    public static void overload(byte[] frame, int off) {
+        status(frame, off, 'O', 'L');
+    }
+
+    /**
+     * Low / underflow frame: 9 spaces then "LO".
+     */
+    public static void underload(byte[] frame, int off) {
+        status(frame, off, 'L', 'O');
+    }
+
+    private static void status(byte[] frame, int off, char c9, char c10) {
+        for (int i = 0; i < 9; i++) frame[off + i] = 0x20;
+        frame[off + 9] = (byte) c9;
+        frame[off + 10] = (byte) c10;
+        trailer(frame, off);
+    }
+
+    /**
+     * Write the checksum over bytes 0..10 into bytes 11/12 and CR LF into 13/14.
+     */
+    public static void trailer(byte[] frame, int off) {
+        int sum = 0;
+        for (int i = 0; i <= 10; i++) {
+            sum += Byte.toUnsignedInt(frame[off + i]);
+        }
+        sum &= 0xFF;
+        int high = (sum >> 4) & 0x0F;
+        int low = sum & 0x0F;
+        frame[off + 11] = (byte) ((high <= 9) ? (high + 0x30) : (high + 0x37));
+        frame[off + 12] = (byte) ((low  <= 9) ? (low  + 0x30) : (low  + 0x37));
+        frame[off + 13] = 0x0D;
+        frame[off + 14] = 0x0A;
+    }
+}
@@ -1,85 +1,319 @@
 package com.ridwanharts.scalemonitor.util;
 
+import com.ridwanharts.scalemonitor.metrics.PortMetrics;
+import com.ridwanharts.scalemonitor.model.ReadingListener;
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.function.Consumer;
 
 /**
  * Simple fixed\-frame parser for the 15\-byte protocol described in the docs.
  * Use feed(...) from your serial data callback and provide onData/onError consumers.
+ * <p>
+ * Incoming bytes are kept in a small primitive ring buffer, so feeding never boxes
+ * bytes or shifts arrays, and resyncing after garbage costs O(1) per dropped byte;
+ * garbage inside a chunk is skipped with the word-at-a-time search of
+ * {@link BulkFrameDecoder}.
+ * Aligned frames are decoded straight from the caller's chunk; frames that straddle
+ * two chunks are assembled in a reused frame buffer.
+ * <p>
+ * Frames can be delivered either as normalized text ("G:4.139 kg") or, without any
+ * String work, as a typed {@link WeightReading} through a {@link ReadingListener}.
  */
 public class ScaleFrameParser {
 
-    private final List<Byte> buf = new ArrayList<>();
+    /** Length of one frame including the trailing CR LF. */
+    public static final int FRAME_LENGTH = 15;
+
+    /** Frame classes returned by {@link #classify(byte[], int)}. */
+    public static final int FRAME_WEIGHT = 0;
+    public static final int FRAME_OVERLOAD = 1;
+    public static final int FRAME_UNDERLOAD = 2;
+    public static final int FRAME_BAD_CHECKSUM = 3;
+    public static final int FRAME_UNKNOWN = 4;
+
+    private static final byte CR = 0x0D;
+    private static final byte LF = 0x0A;
+
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final long SPACES = 0x2020202020202020L;
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    // power of two >= FRAME_LENGTH so positions wrap with a mask
+    private static final int CAPACITY = 16;
+    private static final int MASK = CAPACITY - 1;
+
+    private final byte[] ring = new byte[CAPACITY];
+    private final byte[] frame = new byte[FRAME_LENGTH];
+    private int head;  // ring index of the oldest buffered byte
+    private int count; // number of buffered bytes, always < FRAME_LENGTH between calls
+    private final WeightReading reading = new WeightReading(); // reused for every typed frame
+    private PortMetrics metrics;
+    private long validFrames;   // weight / OL / LO frames
+    private long invalidFrames; // checksum mismatches and unknown frames
+
+    /**
+     * Count frames, checksum mismatches, resync bytes etc. into {@code metrics}; null to stop.
+     */
+    public void setMetrics(PortMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     public void feed(byte[] chunk, Consumer<String> onData, Consumer<String> onError) {
-        for (byte b : chunk) buf.add(b);
+        feed(chunk, 0, chunk.length, onData, onError);
+    }
+
+    /**
+     * Feed {@code len} bytes of {@code chunk} starting at {@code off}.
+     * The chunk is not retained after the call returns.
+     */
+    public void feed(byte[] chunk, int off, int len, Consumer<String> onData, Consumer<String> onError) {
+        scan(chunk, off, len, onData, null, onError);
+    }
+
+    /**
+     * Feed bytes and receive typed readings. The reading handed to {@code onReading}
+     * is reused for the next frame.
+     */
+    public void feedReadings(byte[] chunk, int off, int len, ReadingListener onReading, Consumer<String> onError) {
+        scan(chunk, off, len, null, onReading, onError);
+    }
+
+    private void scan(byte[] chunk, int off, int len,
+                      Consumer<String> onData, ReadingListener onReading, Consumer<String> onError) {
+        int end = off + len;
+        int i = off;
+        int dropped = 0;
+        while (i < end) {
+            // Fast path: nothing buffered and a complete aligned frame in the chunk
+            if (count == 0 && end - i >= FRAME_LENGTH
+                    && chunk[i + 13] == CR && chunk[i + 14] == LF) {
+                emit(chunk, i, onData, onReading, onError);
+                i += FRAME_LENGTH;
+                continue;
+            }
+            // Garbage with nothing buffered: jump to the next CR LF instead of shifting
+            // one byte at a time, keeping the last 14 bytes if there is none
+            if (count == 0 && end - i >= FRAME_LENGTH) {
+                int next = BulkFrameDecoder.nextFrameStart(chunk, i + 14, end);
+                int skipTo = (next >= 0) ? next : end - (FRAME_LENGTH - 1);
+                dropped += skipTo - i;
+                i = skipTo;
+                continue;
+            }
+
+            ring[(head + count) & MASK] = chunk[i++];
+            if (++count < FRAME_LENGTH) continue;
 
-        while (buf.size() >= 15) {
             // Check for CR LF at positions 13 and 14 of the candidate frame
-            int b13 = Byte.toUnsignedInt(buf.get(13));
-            int b14 = Byte.toUnsignedInt(buf.get(14));
-            if (b13 == 0x0D && b14 == 0x0A) {
-                byte[] frame = new byte[15];
-                for (int i = 0; i < 15; i++) frame[i] = buf.get(i);
-                // remove first 15 bytes
-                for (int i = 0; i < 15; i++) buf.remove(0);
-                processFrame(frame, onData, onError);
+            if (ring[(head + 13) & MASK] == CR && ring[(head + 14) & MASK] == LF) {
+                for (int k = 0; k < FRAME_LENGTH; k++) frame[k] = ring[(head + k) & MASK];
+                head = (head + FRAME_LENGTH) & MASK;
+                count = 0;
+                emit(frame, 0, onData, onReading, onError);
             } else {
                 // Not aligned: drop one byte and try again
-                buf.remove(0);
+                head = (head + 1) & MASK;
+                count--;
+                dropped++;
             }
         }
+        if (dropped > 0 && metrics != null) {
+            metrics.addResyncBytes(dropped);
+        }
     }
 
-    private void processFrame(byte[] f, Consumer<String> onData, Consumer<String> onError) {
-        try {
-            // verify checksum over bytes 0..10
-            int sum = 0;
-            for (int i = 0; i <= 10; i++) sum += Byte.toUnsignedInt(f[i]);
-            sum &= 0xFF;
-            int high = (sum >> 4) & 0x0F;
-            int low = sum & 0x0F;
-            int expected12 = (high <= 9) ? (high + 0x30) : (high + 0x37);
-            int expected13 = (low  <= 9) ? (low  + 0x30) : (low  + 0x37);
-            if (Byte.toUnsignedInt(f[11]) != expected12 || Byte.toUnsignedInt(f[12]) != expected13) {
-                onError.accept("checksum mismatch");
-                return;
-            }
+    /**
+     * Frames with a good checksum and a known type since this parser was created.
+     */
+    public long getValidFrames() {
+        return validFrames;
+    }
+
+    /**
+     * Frames with a bad checksum or unknown type since this parser was created.
+     */
+    public long getInvalidFrames() {
+        return invalidFrames;
+    }
+
+    /**
+     * Discard any partially received frame.
+     */
+    public void reset() {
+        head = 0;
+        count = 0;
+    }
+
+    private void emit(byte[] f, int off,
+                      Consumer<String> onData, ReadingListener onReading, Consumer<String> onError) {
+        int frameClass = classify(f, off);
+        if (frameClass <= FRAME_UNDERLOAD) {
+            validFrames++;
+        } else {
+            invalidFrames++;
+        }
+        if (metrics != null) {
+            count(frameClass);
+        }
+        if (onReading != null) {
+            processReading(f, off, frameClass, onReading, onError);
+        } else {
+            processFrame(f, off, frameClass, onData, onError);
+        }
+    }
 
-            // Detect overload / low cases: first 9 bytes are spaces, bytes 9/10 contain OL or LO
-            boolean first9Spaces = true;
-            for (int i = 0; i < 9; i++) {
-                if (Byte.toUnsignedInt(f[i]) != 0x20) { first9Spaces = false; break; }
+    private void count(int frameClass) {
+        switch (frameClass) {
+            case FRAME_WEIGHT: metrics.frameDecoded(); break;
+            case FRAME_OVERLOAD: metrics.overload(); break;
+            case FRAME_UNDERLOAD: metrics.underload(); break;
+            case FRAME_BAD_CHECKSUM: metrics.checksumMismatch(); break;
+            default: metrics.unknownFrame();
+        }
+    }
+
+    /**
+     * Verify the checksum of the frame at {@code f[off..off+14]} and classify it.
+     * Assumes the CR LF trailer has already been matched.
+     *
+     * @return one of the {@code FRAME_*} constants
+     */
+    public static int classify(byte[] f, int off) {
+        // checksum over bytes 0..10: bytes 0..7 are summed in one long, two bytes per lane
+        long w = (long) LONG_LE.get(f, off);
+        long lanes = (w & 0x00FF00FF00FF00FFL) + ((w >>> 8) & 0x00FF00FF00FF00FFL);
+        lanes += lanes >>> 16;
+        lanes += lanes >>> 32;
+        int sum = (int) lanes + Byte.toUnsignedInt(f[off + 8]) + Byte.toUnsignedInt(f[off + 9])
+                + Byte.toUnsignedInt(f[off + 10]);
+        if (f[off + 11] != HEX_DIGITS[(sum >> 4) & 0x0F] || f[off + 12] != HEX_DIGITS[sum & 0x0F]) {
+            return FRAME_BAD_CHECKSUM;
+        }
+
+        // Detect overload / low cases: first 9 bytes are spaces, bytes 9/10 contain OL or LO
+        if (w == SPACES && f[off + 8] == ' ') {
+            if (f[off + 9] == 'O' && f[off + 10] == 'L') return FRAME_OVERLOAD;
+            if (f[off + 9] == 'L' && f[off + 10] == 'O') return FRAME_UNDERLOAD;
+        }
+
+        // Normal weighing frame expected: byte0 == 'W'
+        if (f[off] == 'W') return FRAME_WEIGHT;
+
+        return FRAME_UNKNOWN;
+    }
+
+    private void processFrame(byte[] f, int off, int frameClass, Consumer<String> onData, Consumer<String> onError) {
+        try {
+            switch (frameClass) {
+                case FRAME_BAD_CHECKSUM:
+                    onError.accept("checksum mismatch");
+                    return;
+                case FRAME_OVERLOAD:
+                    onData.accept("OL"); // overload
+                    return;
+                case FRAME_UNDERLOAD:
+                    onData.accept("LO"); // low / underflow
+                    return;
+                case FRAME_WEIGHT:
+                    char mode = (char) Byte.toUnsignedInt(f[off + 1]); // 'G' or 'N'
+                    String rawWeight = new String(f, off + 2, 7, StandardCharsets.UTF_8); // 3rd-9th bytes
+                    String weight = rawWeight.replace(" ", ""); // remove blanks if no decimal
+                    String unit = new String(f, off + 9, 2, StandardCharsets.UTF_8).trim(); // 10th-11th bytes
+                    // emit a compact normalized string: e.g. "G:4.139 kg"
+                    onData.accept(mode + ":" + weight + " " + unit);
+                    return;
+                default:
+                    // Unknown frame type: return raw hex for debugging
+                    onError.accept("unknown frame");
             }
-            char b9 = (char) Byte.toUnsignedInt(f[9]);
-            char b10 = (char) Byte.toUnsignedInt(f[10]);
+        } catch (Exception ex) {
+            onError.accept("parser error: " + ex.getMessage());
+        }
+    }
 
-            if (first9Spaces && b9 == 'O' && b10 == 'L') {
-                onData.accept("OL"); // overload
+    private void processReading(byte[] f, int off, int frameClass,
+                                ReadingListener onReading, Consumer<String> onError) {
+        long now = System.nanoTime();
+        switch (frameClass) {
+            case FRAME_BAD_CHECKSUM:
+                onError.accept("checksum mismatch");
                 return;
-            }
-            if (first9Spaces && b9 == 'L' && b10 == 'O') {
-                onData.accept("LO"); // low / underflow
+            case FRAME_OVERLOAD:
+                onReading.onReading(reading.setStatus(WeightReading.Status.OVERLOAD, now));
                 return;
-            }
-
-            // Normal weighing frame expected: byte0 == 'W'
-            if ((char) Byte.toUnsignedInt(f[0]) == 'W') {
-                char mode = (char) Byte.toUnsignedInt(f[1]); // 'G' or 'N'
-                String rawWeight = new String(f, 2, 7, StandardCharsets.UTF_8); // 3rd-9th bytes
-                String weight = rawWeight.replace(" ", ""); // remove blanks if no decimal
-                String unit = new String(f, 9, 2, StandardCharsets.UTF_8).trim(); // 10th-11th bytes
-                // emit a compact normalized string: e.g. "G:4.139 kg"
-                onData.accept(mode + ":" + weight + " " + unit);
+            case FRAME_UNDERLOAD:
+                onReading.onReading(reading.setStatus(WeightReading.Status.UNDERLOAD, now));
+                return;
+            case FRAME_WEIGHT:
+                if (!decodeWeight(f, off, reading, now)) {
+                    onError.accept("invalid weight field");
+                    return;
+                }
+                onReading.onReading(reading);
                 return;
+            default:
+                onError.accept("unknown frame");
+        }
+    }
+
+    /**
+     * Decode a weighing frame (already classified as {@link #FRAME_WEIGHT}) into {@code out}
+     * without creating any objects.
+     *
+     * @return false when the 7-byte weight field is not a number
+     */
+    public static boolean decodeWeight(byte[] f, int off, WeightReading out, long timestampNanos) {
+        WeightReading.Mode mode;
+        switch (f[off + 1]) {
+            case 'G': mode = WeightReading.Mode.GROSS; break;
+            case 'N': mode = WeightReading.Mode.NET; break;
+            default:  mode = WeightReading.Mode.UNKNOWN;
+        }
+
+        // 3rd-9th bytes: digits with optional sign, decimal point and blank padding
+        long value = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean negative = false;
+        boolean dot = false;
+        for (int i = off + 2; i < off + 9; i++) {
+            int c = f[i];
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                digits++;
+                if (dot) scale++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else if (c == '-' && digits == 0 && !negative) {
+                negative = true;
+            } else if (c != ' ') {
+                return false;
             }
+        }
+        if (digits == 0) return false;
 
-            // Unknown frame type: return raw hex for debugging
-            onError.accept("unknown frame");
-        } catch (Exception ex) {
-            onError.accept("parser error: " + ex.getMessage());
+        out.set(mode, negative ? -value : value, scale, unitOf(f[off + 9], f[off + 10]), timestampNanos);
+        return true;
+    }
+
+    /**
+     * Map the 10th/11th bytes to a unit string, reusing constants for the usual units.
+     */
+    private static String unitOf(byte u0, byte u1) {
+        if (u0 == 'k' && u1 == 'g') return "kg";
+        if (u0 == 'l' && u1 == 'b') return "lb";
+        if (u1 == ' ' || u1 == 0) {
+            if (u0 == 'g') return "g";
+            if (u0 == 't') return "t";
+        }
+        if (u0 == ' ') {
+            if (u1 == 'g') return "g";
+            if (u1 == 't') return "t";
         }
+        return new String(new byte[] {u0, u1}, StandardCharsets.US_ASCII).trim();
     }
 }
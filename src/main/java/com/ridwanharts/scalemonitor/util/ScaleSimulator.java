@@ -1,14 +1,23 @@
 package com.ridwanharts.scalemonitor.util;
 
 import com.fazecast.jSerialComm.SerialPort;
+import com.ridwanharts.scalemonitor.simulator.LoadSimulator;
 
-import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.util.Random;
 
+/**
+ * Sends one random frame per second to a serial port: {@code ScaleSimulator [port] [baud]}.
+ * With {@code --} options it runs the headless {@link LoadSimulator} instead
+ * (many scales, high rates, TCP output, fault injection).
+ */
 public class ScaleSimulator {
 
     public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].startsWith("--")) {
+            LoadSimulator.main(args);
+            return;
+        }
         String portName = (args.length > 0) ? args[0] : "COM3";
         int baud = (args.length > 1) ? Integer.parseInt(args[1]) : 9600;
 
@@ -38,48 +47,7 @@ public class ScaleSimulator {
         try {
             while (true) {
                 byte[] frame = new byte[15];
-
-                // Occasionally send overload / low messages
-                boolean sendOL = (rnd.nextInt(100) < 5);  // 5% chance
-                boolean sendLO = (!sendOL && rnd.nextInt(1000) < 2); // ~0.2% chance
-
-                if (sendOL) {
-                    // 1..9 bytes are spaces, 10='O', 11='L'
-                    for (int i = 0; i < 9; i++) frame[i] = 0x20;
-                    frame[9] = (byte) 'O';
-                    frame[10] = (byte) 'L';
-                } else if (sendLO) {
-                    for (int i = 0; i < 9; i++) frame[i] = 0x20;
-                    frame[9] = (byte) 'L';
-                    frame[10] = (byte) 'O';
-                } else {
-                    // Normal weighing: 1='W', 2='G' (gross)
-                    frame[0] = (byte) 'W';
-                    frame[1] = (byte) 'G';
-                    // generate weight - can be negative occasionally
-                    double w = 10.0 + rnd.nextDouble() * 40.0;
-                    if (rnd.nextInt(1000) < 5) w = -w; // rare negative
-                    String weightStr = df.format(w); // 7 chars
-                    byte[] ws = weightStr.getBytes(StandardCharsets.US_ASCII);
-                    System.arraycopy(ws, 0, frame, 2, 7); // bytes 3..9
-                    frame[9] = (byte) 'k';
-                    frame[10] = (byte) 'g';
-                }
-
-                // Compute checksum over bytes 0..10
-                int sum = 0;
-                for (int i = 0; i <= 10; i++) {
-                    sum += Byte.toUnsignedInt(frame[i]);
-                }
-                sum &= 0xFF;
-                int high = (sum >> 4) & 0x0F;
-                int low = sum & 0x0F;
-                int expected12 = (high <= 9) ? (high + 0x30) : (high + 0x37);
-                int expected13 = (low  <= 9) ? (low  + 0x30) : (low  + 0x37);
-                frame[11] = (byte) expected12;
-                frame[12] = (byte) expected13;
-                frame[13] = 0x0D;
-                frame[14] = 0x0A;
+                nextFrame(rnd, df, frame, 0);
 
                 // Write frame
                 finalPort.writeBytes(frame, frame.length);
@@ -95,4 +63,27 @@ public class ScaleSimulator {
             if (port != null && port.isOpen()) port.closePort();
         }
     }
+
+    /**
+     * Write one random frame into {@code frame[off..off+15)}: mostly gross weights of
+     * 10..50 kg, ~5% overload, ~0.2% low and a rare negative weight.
+     * @param df formats the weight to 7 chars, see main
+     */
+    public static void nextFrame(Random rnd, DecimalFormat df, byte[] frame, int off) {
+        // Occasionally send overload / low messages
+        boolean sendOL = (rnd.nextInt(100) < 5);  // 5% chance
+        boolean sendLO = (!sendOL && rnd.nextInt(1000) < 2); // ~0.2% chance
+
+        if (sendOL) {
+            ScaleFrameEncoder.overload(frame, off);
+        } else if (sendLO) {
+            ScaleFrameEncoder.underload(frame, off);
+        } else {
+            // generate weight - can be negative occasionally
+            double w = 10.0 + rnd.nextDouble() * 40.0;
+            if (rnd.nextInt(1000) < 5) w = -w; // rare negative
+            String weightStr = df.format(w); // 7 chars (negatives are cut to the first 7)
+            ScaleFrameEncoder.weight(frame, off, 'G', weightStr); // gross
+        }
+    }
 }
\ No newline at end of file
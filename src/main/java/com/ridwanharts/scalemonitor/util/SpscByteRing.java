@@ -0,0 +1,201 @@
+package com.ridwanharts.scalemonitor.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free single-producer / single-consumer byte ring used to hand raw bytes from a
+ * transport's reader thread to a decoder thread.
+ * <p>
+ * Positions are ever-increasing longs; {@code tail} is only written by the producer and
+ * {@code head} is advanced by the consumer with a CAS. With {@link Overflow#DROP_OLDEST}
+ * the producer may also move {@code head} forward to make room; a consumer that raced
+ * with such a drop sees its CAS fail and simply re-reads, so it never returns bytes that
+ * were overwritten underneath it.
+ *
+ * @author ridwan
+ */
+public final class SpscByteRing {
+
+    /**
+     * What the producer does when the ring has no room for an incoming chunk.
+     */
+    public enum Overflow {
+        DROP_OLDEST,   // overwrite the oldest unread bytes
+        BLOCK,         // wait until the consumer frees enough space
+        DROP_NEWEST    // discard the incoming chunk and count it
+    }
+
+    private static final long PRODUCER_PARK_NANOS = 50_000;
+
+    private final byte[] data;
+    private final int mask;
+    private final Overflow overflow;
+
+    private final AtomicLong head = new AtomicLong(); // next position to read
+    private volatile long tail;                       // next position to write
+    private volatile Thread consumer;                 // set while the consumer is parked
+    private volatile boolean closed;
+
+    // producer-written counters
+    private volatile long overwrittenBytes;
+    private volatile long droppedBytes;
+    private volatile long blockedCount;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public SpscByteRing(int capacity, Overflow overflow) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        this.data = new byte[size];
+        this.mask = size - 1;
+        this.overflow = overflow;
+    }
+
+    /**
+     * Producer: copy {@code len} bytes of {@code src} into the ring.
+     * @return number of bytes accepted
+     */
+    public int offer(byte[] src, int off, int len) {
+        if (len <= 0 || closed) return 0;
+        int capacity = data.length;
+        if (len > capacity) {
+            // the chunk alone overflows the ring: keep what the policy allows
+            if (overflow == Overflow.DROP_NEWEST) {
+                droppedBytes += len;
+                return 0;
+            }
+            int excess = len - capacity;
+            if (overflow == Overflow.DROP_OLDEST) {
+                overwrittenBytes += excess;
+                off += excess;
+                len = capacity;
+            } else {
+                int first = offer(src, off, capacity);
+                return first + offer(src, off + capacity, excess);
+            }
+        }
+
+        long t = tail;
+        while (true) {
+            long h = head.get();
+            if (capacity - (t - h) >= len) break;
+            if (overflow == Overflow.DROP_NEWEST) {
+                droppedBytes += len;
+                return 0;
+            }
+            if (overflow == Overflow.DROP_OLDEST) {
+                long newHead = t + len - capacity;
+                if (head.compareAndSet(h, newHead)) {
+                    overwrittenBytes += newHead - h;
+                    break;
+                }
+                continue; // consumer moved head, recompute
+            }
+            // BLOCK
+            blockedCount++;
+            wakeConsumer();
+            LockSupport.parkNanos(this, PRODUCER_PARK_NANOS);
+            if (closed || Thread.currentThread().isInterrupted()) return 0;
+        }
+
+        int pos = (int) (t & mask);
+        int first = Math.min(len, capacity - pos);
+        System.arraycopy(src, off, data, pos, first);
+        if (first < len) {
+            System.arraycopy(src, off + first, data, 0, len - first);
+        }
+        tail = t + len;
+        wakeConsumer();
+        return len;
+    }
+
+    /**
+     * Consumer: move up to {@code dst.length} bytes into {@code dst}.
+     * @return number of bytes read, 0 if the ring is empty
+     */
+    public int poll(byte[] dst) {
+        int capacity = data.length;
+        while (true) {
+            long h = head.get();
+            long t = tail;
+            if (t == h) return 0;
+            int n = (int) Math.min(t - h, dst.length);
+            int pos = (int) (h & mask);
+            int first = Math.min(n, capacity - pos);
+            System.arraycopy(data, pos, dst, 0, first);
+            if (first < n) {
+                System.arraycopy(data, 0, dst, first, n - first);
+            }
+            if (head.compareAndSet(h, h + n)) return n;
+            // the producer dropped the oldest bytes while we copied: read again
+        }
+    }
+
+    /**
+     * Consumer: park until data arrives, the timeout passes or the ring is closed.
+     */
+    public void awaitData(long timeoutNanos) {
+        if (tail != head.get() || closed) return;
+        consumer = Thread.currentThread();
+        try {
+            // re-check after publishing ourselves so a concurrent offer cannot be missed
+            if (tail == head.get() && !closed) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            }
+        } finally {
+            consumer = null;
+        }
+    }
+
+    private void wakeConsumer() {
+        Thread c = consumer;
+        if (c != null) LockSupport.unpark(c);
+    }
+
+    /**
+     * Stop accepting bytes and wake a waiting consumer.
+     */
+    public void close() {
+        closed = true;
+        wakeConsumer();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int capacity() {
+        return data.length;
+    }
+
+    /**
+     * Bytes currently buffered.
+     */
+    public int size() {
+        return (int) (tail - head.get());
+    }
+
+    /**
+     * Unread bytes overwritten under {@link Overflow#DROP_OLDEST}.
+     */
+    public long getOverwrittenBytes() {
+        return overwrittenBytes;
+    }
+
+    /**
+     * Incoming bytes discarded under {@link Overflow#DROP_NEWEST}.
+     */
+    public long getDroppedBytes() {
+        return droppedBytes;
+    }
+
+    /**
+     * Times the producer had to wait under {@link Overflow#BLOCK}.
+     */
+    public long getBlockedCount() {
+        return blockedCount;
+    }
+}
@@ -4,6 +4,9 @@
  */
 package com.ridwanharts.scalemonitor.util;
 
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
 /**
  * Parses the typical Sayaki A12E ASCII payload.
  * Example payloads:
@@ -11,10 +14,213 @@ package com.ridwanharts.scalemonitor.util;
  *  - wn000000.0kg
  *
  * Returns normalized decimal like "125.4" or "0.0"
+ * <p>
+ * {@link #parse(byte[], int, int)} and {@link #parse(CharSequence, int, int)} scan the
+ * payload once, skipping non-printables, the "wn"/"w" prefix and "kg" suffix in place,
+ * and leave a fixed-point result in {@link #getValue()} / {@link #getScale()} without
+ * creating any Strings. A parser instance is not thread-safe.
  */
 public class WeightParser {
 
+    private static final int MAX_SIGNIFICANT_DIGITS = 15; // exactly representable as double
+    private static final int MAX_SCALE = 17;
+
+    // scanner states
+    private static final int LEAD = 0;          // leading blanks, prefix not seen yet
+    private static final int PREFIX_W = 1;      // seen 'w', maybe followed by 'n'
+    private static final int AFTER_PREFIX = 2;  // blanks between prefix and number
+    private static final int SIGN = 3;          // seen '+' or '-'
+    private static final int NUMBER = 4;        // inside digits / decimal point
+    private static final int TRAIL = 5;         // blanks after the number
+    private static final int UNIT_K = 6;        // seen 'k' of "kg"
+    private static final int DONE = 7;          // after "kg", only blanks allowed
+    private static final int FAILED = 8;
+
+    private final char zeroDigit;
+    private final char decimalSeparator;
+
+    private int state;
+    private boolean negative;
+    private boolean dot;
+    private int digits;
+    private int significant;
+    private long value;
+    private int scale;
+
+    public WeightParser() {
+        // same symbols String.format("%.1f") picks up for the default locale
+        DecimalFormatSymbols dfs = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+        zeroDigit = dfs.getZeroDigit();
+        decimalSeparator = dfs.getDecimalSeparator();
+    }
+
     public String parseWeight(String raw) {
+        if (raw == null) return null;
+        if (parse(raw, 0, raw.length())) {
+            return formatOneDecimal();
+        }
+        // anything the fast scanner does not understand keeps the original behaviour
+        return parseWeightSlow(raw);
+    }
+
+    /**
+     * Parse the payload in {@code buf[off..off+len)} (ASCII bytes).
+     * @return true if a number was found; read it with {@link #getValue()} / {@link #getScale()}
+     */
+    public boolean parse(byte[] buf, int off, int len) {
+        begin();
+        int end = off + len;
+        for (int i = off; i < end && state != FAILED; i++) {
+            step(buf[i] & 0xFF);
+        }
+        return finish();
+    }
+
+    /**
+     * Parse the payload in {@code text[start..end)}.
+     * @return true if a number was found; read it with {@link #getValue()} / {@link #getScale()}
+     */
+    public boolean parse(CharSequence text, int start, int end) {
+        begin();
+        for (int i = start; i < end && state != FAILED; i++) {
+            step(text.charAt(i));
+        }
+        return finish();
+    }
+
+    /**
+     * Fixed-point value of the last successful parse: {@code value / 10^scale}.
+     */
+    public long getValue() {
+        return negative ? -value : value;
+    }
+
+    /**
+     * Number of decimal places of {@link #getValue()}.
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * True if the last parsed number carried a minus sign (also for "-0.0").
+     */
+    public boolean isNegative() {
+        return negative;
+    }
+
+    private void begin() {
+        state = LEAD;
+        negative = false;
+        dot = false;
+        digits = 0;
+        significant = 0;
+        value = 0;
+        scale = 0;
+    }
+
+    private void step(int c) {
+        if (c < 0x20 || c > 0x7E) return; // non-printables are dropped wherever they appear
+        switch (state) {
+            case LEAD:
+                if (c == ' ') return;
+                if (c == 'w') { state = PREFIX_W; return; }
+                startNumber(c);
+                return;
+            case PREFIX_W:
+                if (c == 'n' || c == ' ') { state = AFTER_PREFIX; return; }
+                startNumber(c);
+                return;
+            case AFTER_PREFIX:
+                if (c == ' ') return;
+                startNumber(c);
+                return;
+            case SIGN:
+                if (!digit(c)) state = FAILED;
+                return;
+            case NUMBER:
+                if (digit(c)) return;
+                if (c == ' ') state = TRAIL;
+                else if (c == 'k') state = UNIT_K;
+                else state = FAILED;
+                return;
+            case TRAIL:
+                if (c == ' ') return;
+                state = (c == 'k') ? UNIT_K : FAILED;
+                return;
+            case UNIT_K:
+                state = (c == 'g') ? DONE : FAILED;
+                return;
+            case DONE:
+                if (c != ' ') state = FAILED;
+                return;
+            default:
+                state = FAILED;
+        }
+    }
+
+    private void startNumber(int c) {
+        if (c == '-' || c == '+') {
+            negative = (c == '-');
+            state = SIGN;
+        } else if (!digit(c)) {
+            state = FAILED;
+        }
+    }
+
+    /**
+     * Consume a digit or decimal point; moves to NUMBER (or FAILED) and returns
+     * false if {@code c} is neither.
+     */
+    private boolean digit(int c) {
+        if (c >= '0' && c <= '9') {
+            if (value != 0 || c != '0') significant++;
+            if (significant > MAX_SIGNIFICANT_DIGITS) { state = FAILED; return true; }
+            value = value * 10 + (c - '0');
+            digits++;
+            if (dot && ++scale > MAX_SCALE) state = FAILED;
+            else state = NUMBER;
+            return true;
+        }
+        if (c == '.') {
+            state = dot ? FAILED : NUMBER;
+            dot = true;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean finish() {
+        return digits > 0 && (state == NUMBER || state == TRAIL || state == DONE);
+    }
+
+    /**
+     * Same text as {@code String.format("%.1f", value)}: rounded half-up to one decimal.
+     */
+    private String formatOneDecimal() {
+        long tenths;
+        if (scale == 0) {
+            tenths = value * 10;
+        } else {
+            long div = 1;
+            for (int i = 1; i < scale; i++) div *= 10;
+            tenths = value / div;
+            if ((value % div) * 2 >= div && div > 1) tenths++;
+        }
+        char[] out = new char[21];
+        int pos = out.length;
+        out[--pos] = (char) (zeroDigit + tenths % 10);
+        out[--pos] = decimalSeparator;
+        long whole = tenths / 10;
+        do {
+            out[--pos] = (char) (zeroDigit + whole % 10);
+            whole /= 10;
+        } while (whole != 0);
+        if (negative) out[--pos] = '-';
+        return new String(out, pos, out.length - pos);
+    }
+
+    private String parseWeightSlow(String raw) {
         if (raw == null) return null;
         raw = raw.trim();
         if (raw.isEmpty()) return null;
@@ -1,10 +1,25 @@
 module scalemonitor {
-    requires javafx.controls;
-    requires javafx.fxml;
+    // optional at runtime: the headless launcher never touches JavaFX, the GUI needs
+    // --add-modules javafx.controls,javafx.fxml (set up for javafx:run and the -Pimage jlink image)
+    requires static javafx.controls;
+    requires static javafx.fxml;
     requires com.fazecast.jSerialComm;
+    requires jdk.httpserver;
+    requires java.management;
+    requires java.sql;
 
 
     opens com.ridwanharts.scalemonitor.controller to javafx.fxml;
     opens com.ridwanharts.scalemonitor to javafx.fxml;
     exports com.ridwanharts.scalemonitor;
+    exports com.ridwanharts.scalemonitor.codec; // so other modules can provide codecs
+    exports com.ridwanharts.scalemonitor.model;
+    exports com.ridwanharts.scalemonitor.metrics; // MXBean interfaces must be visible to JMX
+
+    uses com.ridwanharts.scalemonitor.codec.ScaleCodec;
+    provides com.ridwanharts.scalemonitor.codec.ScaleCodec with
+            com.ridwanharts.scalemonitor.codec.FrameCodec,
+            com.ridwanharts.scalemonitor.codec.LineCodec,
+            com.ridwanharts.scalemonitor.codec.RawHexCodec,
+            com.ridwanharts.scalemonitor.codec.AutoDetectCodec;
 }
\ No newline at end of file
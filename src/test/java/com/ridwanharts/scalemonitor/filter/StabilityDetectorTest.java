@@ -0,0 +1,123 @@
+package com.ridwanharts.scalemonitor.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Behavior of {@link StabilityDetector} at the irregular sample rates real scales produce.
+ *
+ * @author ridwan
+ */
+class StabilityDetectorTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private final List<ScaleEvent.Type> events = new ArrayList<>();
+    private final List<Long> weights = new ArrayList<>();
+    private final WeightReading reading = new WeightReading();
+    private long now;
+
+    private final ScaleEventListener listener = e -> {
+        events.add(e.getType());
+        weights.add(e.getWeight());
+    };
+    // 5 g tolerance, 500 ms window, 2 g zero band, no median
+    private final StabilityDetector detector = new StabilityDetector(0.005, 500, 0.002, 1, listener);
+    // same, with a 2 s window
+    private final StabilityDetector slow = new StabilityDetector(0.005, 2000, 0.002, 1, listener);
+
+    private void feed(long weight, long gapMillis, int count, Random jitter, long jitterMillis) {
+        for (int i = 0; i < count; i++) {
+            long gap = gapMillis;
+            if (jitter != null) {
+                gap += jitter.nextInt((int) (2 * jitterMillis + 1)) - jitterMillis;
+            }
+            now += gap * MILLIS;
+            detector.onReading(reading.set(WeightReading.Mode.GROSS, weight, 3, "kg", now));
+        }
+    }
+
+    private void feedFast(long weight, long gapNanos, int count) {
+        for (int i = 0; i < count; i++) {
+            now += gapNanos;
+            slow.onReading(reading.set(WeightReading.Mode.GROSS, weight, 3, "kg", now));
+        }
+    }
+
+    @Test
+    void settlesAtJittered10Hz() {
+        Random jitter = new Random(42);
+        feed(0, 100, 20, jitter, 30);
+        feed(4139, 100, 20, jitter, 30);
+
+        assertEquals(List.of(ScaleEvent.Type.ZERO, ScaleEvent.Type.MOTION, ScaleEvent.Type.STABLE), events);
+        assertEquals(4139L, (long) weights.get(2));
+    }
+
+    @Test
+    void settlesAtIrregularRate() {
+        feed(1250, 30, 10, null, 0);
+        feed(1250, 170, 2, null, 0);
+        feed(1251, 45, 5, null, 0);
+        feed(1250, 260, 2, null, 0);
+
+        assertEquals(List.of(ScaleEvent.Type.STABLE), events);
+    }
+
+    @Test
+    void settlesWhenSamplesAreFurtherApartThanTheWindow() {
+        feed(0, 700, 3, null, 0);
+
+        assertEquals(List.of(ScaleEvent.Type.ZERO), events);
+    }
+
+    @Test
+    void waitsForTheFullWindow() {
+        feed(2000, 100, 5, null, 0);
+        assertTrue(events.isEmpty(), "settled after 400 ms of a 500 ms window");
+
+        feed(2000, 100, 1, null, 0);
+        assertEquals(List.of(ScaleEvent.Type.STABLE), events);
+    }
+
+    @Test
+    void motionRestartsTheWindow() {
+        feed(2000, 100, 10, null, 0);
+        feed(3000, 100, 1, null, 0);
+        feed(3000, 100, 4, null, 0);
+
+        assertEquals(List.of(ScaleEvent.Type.STABLE, ScaleEvent.Type.MOTION), events);
+
+        feed(3000, 100, 2, null, 0);
+        assertEquals(List.of(ScaleEvent.Type.STABLE, ScaleEvent.Type.MOTION, ScaleEvent.Type.STABLE), events);
+        assertEquals(3000L, (long) weights.get(2));
+    }
+
+    @Test
+    void settlesWhenTheWindowHoldsMoreSamplesThanTheRing() {
+        long gap = 1_302_000L; // 15-byte frames at 115200 baud, ~768 Hz
+        feedFast(0, gap, 2000);
+        feedFast(4139, gap, 1000);
+        assertEquals(List.of(ScaleEvent.Type.ZERO, ScaleEvent.Type.MOTION), events);
+
+        feedFast(4139, gap, 600);
+        assertEquals(List.of(ScaleEvent.Type.ZERO, ScaleEvent.Type.MOTION, ScaleEvent.Type.STABLE), events);
+        assertEquals(4139L, (long) weights.get(2));
+    }
+
+    @Test
+    void slowDriftAtHighRateIsNotStable() {
+        // 1 g every 300 samples at 1 kHz: any 1024 samples are within 5 g, 2 s are not
+        for (int i = 0; i < 6000; i++) {
+            feedFast(1000 + i / 300, 1_000_000L, 1);
+        }
+
+        assertTrue(!events.contains(ScaleEvent.Type.STABLE), "drift reported as stable: " + events);
+    }
+}
@@ -0,0 +1,76 @@
+package com.ridwanharts.scalemonitor.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit handling of {@link WeightHistory#add(WeightReading)}.
+ *
+ * @author ridwan
+ */
+class WeightHistoryTest {
+
+    private final WeightHistory history = new WeightHistory(3, 10_000, 3_600_000);
+    private final WeightReading reading = new WeightReading();
+
+    private void add(long weight, int scale, String unit) {
+        history.add(reading.set(WeightReading.Mode.GROSS, weight, scale, unit, System.nanoTime()));
+    }
+
+    private List<Long> weights() {
+        List<Long> weights = new ArrayList<>();
+        history.forEachRaw(0, Long.MAX_VALUE, (time, weight, status) -> weights.add(weight));
+        return weights;
+    }
+
+    @Test
+    void convertsOtherMassUnits() {
+        add(1250, 3, "kg");
+        add(10, 0, "lb");
+        add(500, 0, "g");
+
+        assertEquals("kg", history.getUnit());
+        assertEquals(List.of(1250L, 4536L, 500L), weights());
+        assertEquals(0, history.getUnitMismatches());
+    }
+
+    @Test
+    void dropsUnconvertibleUnitsOnceAMassUnitIsKnown() {
+        add(1250, 3, "kg");
+        add(7, 0, "pcs");
+
+        assertEquals("kg", history.getUnit());
+        assertEquals(List.of(1250L), weights());
+        assertEquals(1, history.getUnitMismatches());
+    }
+
+    @Test
+    void unknownFirstUnitDoesNotLockTheHistory() {
+        add(1250, 3, "");
+        add(1260, 3, "kg");
+        add(1270, 3, "kg");
+        add(3, 0, "lb");
+
+        assertEquals("kg", history.getUnit());
+        assertEquals(List.of(1250L, 1260L, 1270L, 1361L), weights());
+        assertEquals(0, history.getUnitMismatches());
+    }
+
+    @Test
+    void followsNonMassUnitsUntilAMassUnitArrives() {
+        add(4, 0, "pcs");
+        add(5, 0, "pcs");
+        assertEquals("pcs", history.getUnit());
+
+        add(2000, 3, "kg");
+        add(6, 0, "pcs");
+
+        assertEquals("kg", history.getUnit());
+        assertEquals(List.of(4000L, 5000L, 2000L), weights());
+        assertEquals(1, history.getUnitMismatches());
+    }
+}
@@ -0,0 +1,115 @@
+package com.ridwanharts.scalemonitor.reprocess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ridwanharts.scalemonitor.util.BulkFrameDecoder;
+import com.ridwanharts.scalemonitor.util.RawDumps;
+import com.ridwanharts.scalemonitor.util.ScaleFrameParser;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * {@link Reprocessor#run} must give the frames, class counts and resync bytes of one
+ * sequential {@link ScaleFrameParser} over the same file, whatever the chunk size and
+ * parallelism.
+ *
+ * @author ridwan
+ */
+class ReprocessorTest {
+
+    private static final int[] CHUNK_BYTES = {4096, 4099, 6000, 65_536};
+    private static final int[] PARALLELISM = {1, 2, 3};
+
+    @TempDir
+    Path dir;
+
+    private int seamFixups;
+
+    private void check(byte[] data, long seed) throws Exception {
+        Path file = dir.resolve("dump-" + seed + ".bin");
+        Files.write(file, data);
+        RawDumps.Decoded expected = RawDumps.sequential(data, new Random(seed));
+        long[] expectedCounts = new long[BulkFrameDecoder.FRAME_INVALID_WEIGHT + 1];
+        for (String f : expected.frames) expectedCounts[classOf(f)]++;
+
+        for (int parallelism : PARALLELISM) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                for (int chunkBytes : CHUNK_BYTES) {
+                    String run = "seed " + seed + ", " + parallelism + " workers, " + chunkBytes + " byte chunks";
+                    List<String> frames = new ArrayList<>();
+                    long[] last = {-ScaleFrameParser.FRAME_LENGTH};
+                    ReprocessStats stats = new Reprocessor(pool, chunkBytes).run(file, (base, columns, from, to) -> {
+                        for (int i = from; i < to; i++) {
+                            long pos = base + columns.getOffsets()[i];
+                            assertTrue(pos >= last[0] + ScaleFrameParser.FRAME_LENGTH, run + ": overlapping frame at " + pos);
+                            last[0] = pos;
+                            frames.add(RawDumps.describe(columns, i));
+                        }
+                    });
+
+                    assertEquals(expected.frames, frames, run);
+                    assertEquals(expected.frames.size(), stats.getFrames(), run);
+                    assertEquals(expected.resyncBytes, stats.getResyncBytes(), run);
+                    assertEquals(data.length - expected.frames.size() * (long) ScaleFrameParser.FRAME_LENGTH
+                            - expected.resyncBytes, stats.getTrailingBytes(), run);
+                    for (int c = 0; c < expectedCounts.length; c++) {
+                        assertEquals(expectedCounts[c], stats.getCount(c), run + ", " + ReprocessStats.className(c));
+                    }
+                    seamFixups += stats.getSeamFixups();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static int classOf(String frame) {
+        switch (frame) {
+            case "OL": return ScaleFrameParser.FRAME_OVERLOAD;
+            case "LO": return ScaleFrameParser.FRAME_UNDERLOAD;
+            case "checksum mismatch": return ScaleFrameParser.FRAME_BAD_CHECKSUM;
+            case "unknown frame": return ScaleFrameParser.FRAME_UNKNOWN;
+            case "invalid weight field": return BulkFrameDecoder.FRAME_INVALID_WEIGHT;
+            default: return ScaleFrameParser.FRAME_WEIGHT;
+        }
+    }
+
+    @Test
+    void matchesSequentialParser() throws Exception {
+        for (long seed = 0; seed < 8; seed++) {
+            Random random = new Random(seed);
+            check(RawDumps.generate(random, 100_000 + random.nextInt(300_000)), seed);
+        }
+        assertTrue(seamFixups > 0, "no frame straddled a split, the seam code went untested");
+    }
+
+    @Test
+    void matchesSequentialParserOnTinyFiles() throws Exception {
+        Random random = new Random(99);
+        for (int size : new int[] {0, 1, 14, 15, 16, 29, 30, 4095, 4096, 4097}) {
+            byte[] data = RawDumps.generate(random, size);
+            check(java.util.Arrays.copyOf(data, size), size);
+        }
+    }
+
+    @Test
+    void classNamesIgnoreDefaultLocale() {
+        Locale saved = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            ReprocessStats stats = new ReprocessStats(0, new long[BulkFrameDecoder.FRAME_INVALID_WEIGHT + 1], 0, 0, 0, 0, 0);
+            assertTrue(stats.toString().contains("invalid_weight=0"), stats.toString());
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ridwanharts.scalemonitor.sink;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * {@link JdbcTarget} and a {@link ReadingSink} writing to it, against an in-memory H2 database.
+ *
+ * @author ridwan
+ */
+class JdbcTargetTest {
+
+    @TempDir
+    Path dir;
+
+    private final String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    private final JdbcTarget target = new JdbcTarget(url, "sa", "", "weights");
+
+    JdbcTargetTest() {
+        target.setCreateTable(true);
+    }
+
+    @AfterEach
+    void dropDatabase() throws SQLException {
+        try (Connection c = DriverManager.getConnection(url, "sa", ""); Statement st = c.createStatement()) {
+            st.execute("SHUTDOWN");
+        }
+    }
+
+    private static SinkRecord record(String scaleId, long weight, String unit) {
+        return new SinkRecord(scaleId, 1_700_000_000_000L, "OK", "GROSS", weight, 3, unit);
+    }
+
+    private List<String> rows() throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Connection c = DriverManager.getConnection(url, "sa", "");
+             Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT scale_id, kind, mode, weight, unit FROM weights ORDER BY weight")) {
+            while (rs.next()) {
+                BigDecimal weight = rs.getBigDecimal(4);
+                rows.add(rs.getString(1) + " " + rs.getString(2) + " " + rs.getString(3) + " "
+                        + weight.setScale(3) + " " + rs.getString(5));
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    void insertsBatch() throws Exception {
+        target.write(List.of(record("S1", 1250, "kg"),
+                new SinkRecord("S1", 1_700_000_000_100L, "STABLE", null, 1251, 3, "kg")));
+        target.close();
+
+        assertEquals(List.of("S1 OK GROSS 1.250 kg", "S1 STABLE null 1.251 kg"), rows());
+    }
+
+    @Test
+    void rejectsTooLongValueForGood() throws Exception {
+        IOException ex = assertThrows(IOException.class,
+                () -> target.write(List.of(record("S1", 1, "kg"), record("S1", 2, "kilograms"))));
+        assertTrue(ReadingSink.isPermanent(ex), "value too long should not be retried: " + ex);
+        assertEquals(List.of(), rows());
+
+        target.write(List.of(record("S1", 3, "kg")));
+        target.close();
+        assertEquals(List.of("S1 OK GROSS 0.003 kg"), rows());
+    }
+
+    @Test
+    void missingDatabaseIsRetried() {
+        JdbcTarget missing = new JdbcTarget("jdbc:h2:" + dir.resolve("none") + ";IFEXISTS=TRUE", "sa", "", "weights");
+        IOException ex = assertThrows(IOException.class, () -> missing.write(List.of(record("S1", 1, "kg"))));
+        assertFalse(ReadingSink.isPermanent(ex), "connection failure treated as poison: " + ex);
+    }
+
+    @Test
+    void sinkDeadLettersRejectedBatchAndKeepsWriting() throws Exception {
+        ReadingSink sink = new ReadingSink(target, dir, 100, 1, 10);
+        WeightReading r = new WeightReading();
+        sink.onReading(r.set(WeightReading.Mode.GROSS, 1000, 3, "kg", System.nanoTime()).setScaleId("S1"));
+        sink.onReading(r.set(WeightReading.Mode.GROSS, 2000, 3, "kg", System.nanoTime()).setScaleId("S".repeat(65)));
+        sink.onReading(r.set(WeightReading.Mode.NET, 3000, 3, "kg", System.nanoTime()).setScaleId("S1"));
+        sink.close();
+
+        assertEquals(List.of("S1 OK GROSS 1.000 kg", "S1 OK NET 3.000 kg"), rows());
+        assertEquals(2, sink.getWrittenCount());
+        assertEquals(1, sink.getPoisonedCount());
+        List<List<SinkRecord>> dead = SpillFile.read(dir.resolve(ReadingSink.DEAD_LETTER_DIR).resolve("spill-000001.bin"));
+        assertEquals(65, dead.get(0).get(0).getScaleId().length());
+    }
+}
@@ -0,0 +1,142 @@
+package com.ridwanharts.scalemonitor.sink;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import java.io.IOException;
+import java.nio.charset.MalformedInputException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Retry, spill replay and dead-lettering of {@link ReadingSink} against an in-memory target.
+ *
+ * @author ridwan
+ */
+class ReadingSinkTest {
+
+    @TempDir
+    Path dir;
+
+    private final WeightReading reading = new WeightReading();
+
+    /**
+     * Stores weights in arrival order; holds writes until opened, fails the first
+     * {@code transientFailures} writes and rejects any batch holding the unit "bad".
+     */
+    private static final class MemoryTarget implements SinkTarget {
+
+        final List<Long> weights = new ArrayList<>(); // writer thread only until close
+        final CountDownLatch gate = new CountDownLatch(1);
+        int transientFailures;
+
+        MemoryTarget(boolean open) {
+            if (open) gate.countDown();
+        }
+
+        @Override
+        public void write(List<SinkRecord> batch) throws IOException {
+            try {
+                gate.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            }
+            if (transientFailures > 0) {
+                transientFailures--;
+                throw new IOException("connection reset");
+            }
+            for (SinkRecord r : batch) {
+                if ("bad".equals(r.getUnit())) throw new MalformedInputException(1);
+            }
+            for (SinkRecord r : batch) weights.add(r.getWeight());
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private void offer(ReadingSink sink, long weight, String unit) {
+        sink.onReading(reading.set(WeightReading.Mode.GROSS, weight, 3, unit, System.nanoTime()).setScaleId("S1"));
+    }
+
+    @Test
+    void replaysSpilledBatchesInOrder() throws Exception {
+        MemoryTarget target = new MemoryTarget(false);
+        ReadingSink sink = new ReadingSink(target, dir, 100_000, 10, 10);
+        for (int i = 0; i < 5000; i++) offer(sink, i, "kg");
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (sink.getSpilledCount() == 0 && System.nanoTime() < deadline) Thread.sleep(10);
+        assertTrue(sink.getSpilledCount() > 0, "nothing spilled while the target was stalled");
+
+        target.gate.countDown();
+        sink.close();
+
+        assertEquals(LongStream.range(0, 5000).boxed().collect(Collectors.toList()), target.weights);
+        assertEquals(5000, sink.getWrittenCount());
+        assertEquals(0, sink.getDroppedCount());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(dir.resolve(ReadingSink.DEAD_LETTER_DIR)), files.collect(Collectors.toList()),
+                    "replayed segments are deleted");
+        }
+    }
+
+    @Test
+    void retriesTransientFailures() throws Exception {
+        MemoryTarget target = new MemoryTarget(true);
+        target.transientFailures = 2;
+        ReadingSink sink = new ReadingSink(target, dir, 100, 10, 10);
+        offer(sink, 1250, "kg");
+        sink.close();
+
+        assertEquals(List.of(1250L), target.weights);
+        assertEquals(2, sink.getFailureCount());
+        assertEquals(0, sink.getPoisonedCount());
+    }
+
+    @Test
+    void deadLettersPoisonBatchAndKeepsWriting() throws Exception {
+        MemoryTarget target = new MemoryTarget(true);
+        ReadingSink sink = new ReadingSink(target, dir, 100, 1, 10);
+        offer(sink, 1, "kg");
+        offer(sink, 2, "bad");
+        offer(sink, 3, "kg");
+        sink.close();
+
+        assertEquals(List.of(1L, 3L), target.weights);
+        assertEquals(1, sink.getPoisonedCount());
+        assertEquals(0, sink.getDroppedCount());
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(dir.resolve(ReadingSink.DEAD_LETTER_DIR))) {
+            segments = files.collect(Collectors.toList());
+        }
+        assertEquals(1, segments.size());
+        List<List<SinkRecord>> batches = SpillFile.read(segments.get(0));
+        assertEquals(1, batches.size());
+        assertEquals(2L, batches.get(0).get(0).getWeight());
+        assertEquals("bad", batches.get(0).get(0).getUnit());
+    }
+
+    @Test
+    void dropsPoisonBatchWithoutSpillDirectory() throws Exception {
+        MemoryTarget target = new MemoryTarget(true);
+        ReadingSink sink = new ReadingSink(target, null, 100, 1, 10);
+        offer(sink, 1, "bad");
+        offer(sink, 2, "kg");
+        sink.close();
+
+        assertEquals(List.of(2L), target.weights);
+        assertEquals(1, sink.getPoisonedCount());
+        assertEquals(1, sink.getDroppedCount());
+    }
+}
@@ -0,0 +1,62 @@
+package com.ridwanharts.scalemonitor.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link BulkFrameDecoder#decode} fed region by region must find what
+ * {@link ScaleFrameParser#feedReadings} finds in the same stream.
+ *
+ * @author ridwan
+ */
+class BulkFrameDecoderTest {
+
+    @Test
+    void matchesParserRegionByRegion() {
+        for (long seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            byte[] data = RawDumps.generate(random, 50_000 + random.nextInt(100_000));
+            RawDumps.Decoded expected = RawDumps.sequential(data, random);
+
+            List<String> frames = new ArrayList<>();
+            FrameColumns columns = new FrameColumns(1 + random.nextInt(64)); // fills up mid-region
+            byte[] pending = new byte[0];
+            int pos = 0;
+            while (pos < data.length) {
+                int len = Math.min(1 + random.nextInt(5000), data.length - pos);
+                byte[] buf = Arrays.copyOf(pending, pending.length + len);
+                System.arraycopy(data, pos, buf, pending.length, len);
+                pos += len;
+                int off = 0;
+                boolean full;
+                do {
+                    off += BulkFrameDecoder.decode(buf, off, buf.length - off, columns);
+                    full = columns.isFull();
+                    for (int i = 0; i < columns.size(); i++) frames.add(RawDumps.describe(columns, i));
+                    columns.clear();
+                } while (full);
+                pending = Arrays.copyOfRange(buf, off, buf.length);
+            }
+
+            assertEquals(expected.frames, frames, "seed " + seed);
+            assertEquals(expected.resyncBytes, columns.getResyncBytes(), "seed " + seed);
+        }
+    }
+
+    @Test
+    void nextFrameStartFindsFirstCrLf() {
+        byte[] buf = new byte[64];
+        Arrays.fill(buf, (byte) 'x');
+        buf[30] = 0x0D; // CR without LF
+        buf[40] = 0x0D;
+        buf[41] = 0x0A;
+        assertEquals(40 - 13, BulkFrameDecoder.nextFrameStart(buf, 13, buf.length));
+        assertEquals(-1, BulkFrameDecoder.nextFrameStart(buf, 41, buf.length));
+        assertEquals(-1, BulkFrameDecoder.nextFrameStart(buf, 13, 41)); // LF outside the region
+    }
+}
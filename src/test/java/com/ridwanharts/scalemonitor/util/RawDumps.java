@@ -0,0 +1,128 @@
+package com.ridwanharts.scalemonitor.util;
+
+import com.ridwanharts.scalemonitor.metrics.PortMetrics;
+import com.ridwanharts.scalemonitor.model.WeightReading;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Random raw dumps and what one {@link ScaleFrameParser} makes of them, the reference the
+ * bulk and parallel decoders are compared with.
+ *
+ * @author ridwan
+ */
+public final class RawDumps {
+
+    private static final byte[] NOISE = {0x0D, 0x0A, 'W', 'G', 'N', ' ', '0', '.', 'k', 'g', 'O', 'L'};
+
+    /**
+     * Frames and resync bytes of one pass over a dump.
+     */
+    public static final class Decoded {
+
+        public final List<String> frames = new ArrayList<>();
+        public long resyncBytes;
+    }
+
+    private RawDumps() {
+    }
+
+    /**
+     * About {@code bytes} bytes of weight, OL/LO, bad checksum, unknown and invalid weight
+     * frames mixed with cut-off frames, short runs of CR/LF-heavy noise and the odd long
+     * stretch without any CR.
+     */
+    public static byte[] generate(Random random, int bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes + 10_000);
+        byte[] f = new byte[ScaleFrameParser.FRAME_LENGTH];
+        while (out.size() < bytes) {
+            int kind = random.nextInt(100);
+            if (kind < 50) {
+                ScaleFrameEncoder.weight(f, 0, "GGGNX".charAt(random.nextInt(5)), weight7(random));
+            } else if (kind < 55) {
+                ScaleFrameEncoder.weight(f, 0, 'G', "12a.456");
+            } else if (kind < 60) {
+                ScaleFrameEncoder.overload(f, 0);
+            } else if (kind < 64) {
+                ScaleFrameEncoder.underload(f, 0);
+            } else if (kind < 70) {
+                ScaleFrameEncoder.weight(f, 0, 'N', weight7(random));
+                f[11] ^= 0x01; // still a hex digit, but the wrong one
+            } else if (kind < 74) {
+                ScaleFrameEncoder.weight(f, 0, 'G', weight7(random));
+                f[0] = 'Z';
+                ScaleFrameEncoder.trailer(f, 0);
+            } else if (kind < 84) {
+                ScaleFrameEncoder.weight(f, 0, 'G', weight7(random));
+                out.write(f, 0, 1 + random.nextInt(f.length - 1));
+                continue;
+            } else if (kind < 99) {
+                for (int n = 1 + random.nextInt(40); n > 0; n--) {
+                    out.write(random.nextInt(4) == 0 ? random.nextInt(256) : NOISE[random.nextInt(NOISE.length)]);
+                }
+                continue;
+            } else {
+                for (int n = 4000 + random.nextInt(6000); n > 0; n--) {
+                    int b = random.nextInt(256);
+                    out.write(b == 0x0D ? 0x0E : b);
+                }
+                continue;
+            }
+            out.write(f, 0, f.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static String weight7(Random random) {
+        double value = (random.nextInt(2_000_000) - 200_000) / 1000.0;
+        String s = String.format(Locale.ROOT, random.nextBoolean() ? "%07.3f" : "%7.2f", value);
+        return s.substring(0, 7);
+    }
+
+    /**
+     * Feed {@code data} to one parser in random pieces.
+     */
+    public static Decoded sequential(byte[] data, Random random) {
+        Decoded decoded = new Decoded();
+        PortMetrics metrics = new PortMetrics("dump");
+        ScaleFrameParser parser = new ScaleFrameParser();
+        parser.setMetrics(metrics);
+        int off = 0;
+        while (off < data.length) {
+            int len = Math.min(1 + random.nextInt(3000), data.length - off);
+            parser.feedReadings(data, off, len, r -> decoded.frames.add(describe(r)), error -> decoded.frames.add(error));
+            off += len;
+        }
+        decoded.resyncBytes = metrics.getResyncBytesDropped();
+        return decoded;
+    }
+
+    private static String describe(WeightReading r) {
+        switch (r.getStatus()) {
+            case OVERLOAD: return "OL";
+            case UNDERLOAD: return "LO";
+            default: return r.getMode() + " " + r.getWeight() + "e-" + r.getScale() + " " + r.getUnit();
+        }
+    }
+
+    /**
+     * Slot {@code i} of {@code frames} the way {@link #sequential} describes it.
+     */
+    public static String describe(FrameColumns frames, int i) {
+        switch (frames.getClasses()[i]) {
+            case ScaleFrameParser.FRAME_OVERLOAD: return "OL";
+            case ScaleFrameParser.FRAME_UNDERLOAD: return "LO";
+            case ScaleFrameParser.FRAME_BAD_CHECKSUM: return "checksum mismatch";
+            case ScaleFrameParser.FRAME_UNKNOWN: return "unknown frame";
+            case BulkFrameDecoder.FRAME_INVALID_WEIGHT: return "invalid weight field";
+            default:
+                byte m = frames.getModes()[i];
+                WeightReading.Mode mode = (m == 'G') ? WeightReading.Mode.GROSS
+                        : (m == 'N') ? WeightReading.Mode.NET : WeightReading.Mode.UNKNOWN;
+                return mode + " " + frames.getWeights()[i] + "e-" + frames.getScales()[i] + " " + frames.getUnits()[i];
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.ridwanharts.scalemonitor.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.Test;
+
+/**
+ * One producer and one consumer thread racing on a small {@link SpscByteRing}, per
+ * overflow policy: bytes arrive in order and intact, and every offered byte is either
+ * delivered or counted as overwritten / dropped.
+ *
+ * @author ridwan
+ */
+class SpscByteRingTest {
+
+    private static final int CAPACITY = 4096;
+    private static final int TINY_CAPACITY = 64; // the producer overwrites while the consumer copies
+    private static final int TOTAL_BYTES = 8 << 20;
+
+    private static final class Run {
+
+        byte[] offered;
+        final ByteArrayOutputStream accepted = new ByteArrayOutputStream(TOTAL_BYTES); // what offer() took
+        final ByteArrayOutputStream delivered = new ByteArrayOutputStream(TOTAL_BYTES);
+        int[] polls = new int[1024]; // length of each non-empty poll()
+        int pollCount;
+        SpscByteRing ring;
+    }
+
+    private static Run race(SpscByteRing.Overflow overflow, int capacity, long seed) throws Exception {
+        Run run = new Run();
+        run.offered = new byte[TOTAL_BYTES];
+        new Random(seed).nextBytes(run.offered);
+        run.ring = new SpscByteRing(capacity, overflow);
+        SpscByteRing ring = run.ring;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread producer = new Thread(() -> {
+            Random random = new Random(seed + 1);
+            int off = 0;
+            while (off < TOTAL_BYTES) {
+                // mostly small chunks, sometimes more than the whole ring
+                int len = random.nextInt(8) == 0 ? 1 + random.nextInt(capacity * 3 / 2) : 1 + random.nextInt(256);
+                len = Math.min(len, TOTAL_BYTES - off);
+                int n = ring.offer(run.offered, off, len);
+                run.accepted.write(run.offered, off + len - n, n); // DROP_OLDEST keeps the tail of a huge chunk
+                off += len;
+                if (random.nextInt(64) == 0) Thread.yield();
+            }
+            ring.close();
+        }, "ring-producer");
+
+        Thread consumer = new Thread(() -> {
+            Random random = new Random(seed + 2);
+            byte[] dst = new byte[1 + random.nextInt(capacity)];
+            while (true) {
+                int n = ring.poll(dst);
+                if (n == 0) {
+                    if (!ring.isClosed()) {
+                        ring.awaitData(1_000_000);
+                        continue;
+                    }
+                    n = ring.poll(dst); // closed: take what is left
+                    if (n == 0) break;
+                }
+                run.delivered.write(dst, 0, n);
+                if (run.pollCount == run.polls.length) run.polls = Arrays.copyOf(run.polls, 2 * run.pollCount);
+                run.polls[run.pollCount++] = n;
+                if (random.nextInt(32) == 0) LockSupport.parkNanos(20_000); // fall behind now and then
+            }
+        }, "ring-consumer");
+
+        Thread.UncaughtExceptionHandler handler = (t, e) -> failure.set(e);
+        producer.setUncaughtExceptionHandler(handler);
+        consumer.setUncaughtExceptionHandler(handler);
+        consumer.start();
+        producer.start();
+        producer.join(60_000);
+        consumer.join(60_000);
+        assertTrue(!producer.isAlive() && !consumer.isAlive(), "producer or consumer hung");
+        if (failure.get() != null) throw new AssertionError(failure.get());
+        return run;
+    }
+
+    @Test
+    void blockDeliversEverythingInOrder() throws Exception {
+        for (long seed = 0; seed < 3; seed++) {
+            Run run = race(SpscByteRing.Overflow.BLOCK, CAPACITY, seed);
+
+            assertArrayEquals(run.offered, run.delivered.toByteArray());
+            assertEquals(TOTAL_BYTES, run.accepted.size());
+            assertEquals(0, run.ring.getOverwrittenBytes());
+            assertEquals(0, run.ring.getDroppedBytes());
+            assertTrue(run.ring.getBlockedCount() > 0, "the producer never had to wait");
+        }
+    }
+
+    @Test
+    void dropNewestDeliversWhatWasAccepted() throws Exception {
+        for (long seed = 0; seed < 3; seed++) {
+            Run run = race(SpscByteRing.Overflow.DROP_NEWEST, CAPACITY, seed);
+
+            assertArrayEquals(run.accepted.toByteArray(), run.delivered.toByteArray());
+            assertTrue(run.ring.getDroppedBytes() > 0, "nothing was dropped");
+            assertEquals(0, run.ring.getOverwrittenBytes());
+            assertEquals((long) TOTAL_BYTES, run.delivered.size() + run.ring.getDroppedBytes());
+        }
+    }
+
+    @Test
+    void dropOldestDeliversOrderedPiecesAndCountsTheRest() throws Exception {
+        for (long seed = 0; seed < 6; seed++) {
+            Run run = race(SpscByteRing.Overflow.DROP_OLDEST, (seed % 2 == 0) ? CAPACITY : TINY_CAPACITY, seed);
+            byte[] accepted = run.accepted.toByteArray();
+            byte[] delivered = run.delivered.toByteArray();
+
+            // each poll is one contiguous piece of what was accepted, later than the one
+            // before; the earliest place it fits is never past where it really came from
+            int src = 0;
+            int dst = 0;
+            for (int i = 0; i < run.pollCount; i++) {
+                int n = run.polls[i];
+                int at = src;
+                while (at + n <= accepted.length && Arrays.mismatch(accepted, at, at + n, delivered, dst, dst + n) >= 0) {
+                    at++;
+                }
+                assertTrue(at + n <= accepted.length, "poll " + i + " (" + n + " bytes) is not a piece of the stream after " + src);
+                src = at + n;
+                dst += n;
+            }
+            assertTrue(run.ring.getOverwrittenBytes() > 0, "nothing was overwritten");
+            assertEquals(0, run.ring.getDroppedBytes());
+            assertEquals((long) TOTAL_BYTES, delivered.length + run.ring.getOverwrittenBytes());
+        }
+    }
+
+    @Test
+    void pollWrapsAroundTheEnd() {
+        SpscByteRing ring = new SpscByteRing(8, SpscByteRing.Overflow.DROP_NEWEST);
+        byte[] dst = new byte[8];
+        assertEquals(6, ring.offer(new byte[] {1, 2, 3, 4, 5, 6}, 0, 6));
+        assertEquals(6, ring.poll(dst));
+        assertEquals(5, ring.offer(new byte[] {7, 8, 9, 10, 11}, 0, 5));
+        assertEquals(5, ring.poll(dst));
+        assertArrayEquals(new byte[] {7, 8, 9, 10, 11}, Arrays.copyOf(dst, 5));
+        assertEquals(0, ring.poll(dst));
+    }
+}